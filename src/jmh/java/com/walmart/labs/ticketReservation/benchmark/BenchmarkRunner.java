@@ -0,0 +1,56 @@
+package com.walmart.labs.ticketReservation.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of the jmh Gradle task
+ * Runs the selected benchmarks once for each thread count, with the GC profiler to report the allocation rates.
+ * The results of each run are written as JSON under build/reports/jmh.
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULT_DIR = "build/reports/jmh";
+
+    /**
+     * @param args - [0] regex of the benchmarks to run, all by default
+     *             [1] comma separated thread counts, 1 and the number of processors by default
+     * @throws RunnerException - Exception running the benchmarks
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = (args.length > 0 && !args[0].isEmpty()) ? args[0] : ".*";
+        int[] threadCounts = parseThreadCounts((args.length > 1) ? args[1] : "");
+
+        new File(RESULT_DIR).mkdirs();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(String.format("%s/results-%dthreads.json", RESULT_DIR, threads))
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    private static int[] parseThreadCounts(String threadCounts) {
+        if (threadCounts.isEmpty()) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            return (processors > 1) ? new int[]{1, processors} : new int[]{1};
+        }
+        String[] counts = threadCounts.split(",");
+        int[] threads = new int[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            threads[i] = Integer.parseInt(counts[i].trim());
+        }
+        return threads;
+    }
+
+}
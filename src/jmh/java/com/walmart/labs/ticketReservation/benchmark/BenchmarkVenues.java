@@ -0,0 +1,59 @@
+package com.walmart.labs.ticketReservation.benchmark;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import com.walmart.labs.ticketReservation.model.venue.ConcurrencyMode;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Venues for the benchmarks
+ */
+final class BenchmarkVenues {
+
+    //Same seed every run, so every run gets the same venue
+    private static final long SEED = 42;
+
+    private BenchmarkVenues() {
+    }
+
+    /**
+     * Create a venue with the given percentage of its seats already reserved
+     * The reserved seats are picked at random, so the open seats left are scattered like in a venue selling for a while
+     * @param venueSize - ROWSxCOLUMNS, ie 100x100
+     * @param fillPercent - percentage of the seats to reserve
+     * @param concurrencyMode - concurrency mode of the venue
+     * @return the venue
+     * @throws Exception - Exception reserving the seats
+     */
+    static Venue create(String venueSize, int fillPercent, ConcurrencyMode concurrencyMode) throws Exception {
+        String[] size = venueSize.split("x");
+        Venue venue = new Venue(Integer.parseInt(size[0]), Integer.parseInt(size[1]), concurrencyMode);
+
+        int maxOccupancy = venue.getMaxOccupancy();
+        int[] seatNumbers = new int[maxOccupancy];
+        for (int i = 0; i < maxOccupancy; i++) {
+            seatNumbers[i] = i;
+        }
+
+        //Partial Fisher-Yates shuffle : the first numReserved entries are the seats to reserve
+        int numReserved = (int) ((long) maxOccupancy * fillPercent / 100);
+        Random random = new Random(SEED);
+        List<Seat> seats = new ArrayList<>(numReserved);
+        for (int i = 0; i < numReserved; i++) {
+            int j = i + random.nextInt(maxOccupancy - i);
+            int seatNumber = seatNumbers[j];
+            seatNumbers[j] = seatNumbers[i];
+            seats.add(venue.getSeatByIndex(seatNumber));
+        }
+
+        if (!seats.isEmpty()) {
+            venue.processSeats(seats, SeatState.RESERVED);
+        }
+        return venue;
+    }
+
+}
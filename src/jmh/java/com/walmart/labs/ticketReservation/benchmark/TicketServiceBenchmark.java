@@ -0,0 +1,108 @@
+package com.walmart.labs.ticketReservation.benchmark;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import com.walmart.labs.ticketReservation.model.venue.ConcurrencyMode;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import com.walmart.labs.ticketReservation.service.TicketServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the TicketService operations
+ * The service runs on a manual clock which every operation moves forward by a fraction of the hold timeout,
+ * so the holds expire HOLDS_IN_FLIGHT operations later and the venue stays at the same fill level.
+ * The service is created again every iteration, so the reservations of an iteration don't pile up in the next one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketServiceBenchmark {
+
+    private static final String CUSTOMER_EMAIL = "benchmark@walmart.com";
+
+    private static final int SEAT_HOLD_TIMEOUT = 1000;
+
+    private static final int HOLDS_IN_FLIGHT = 16;
+
+    private static final long CLOCK_STEP = TimeUnit.MILLISECONDS.toNanos(SEAT_HOLD_TIMEOUT) / HOLDS_IN_FLIGHT;
+
+    @Param({"100x100", "1000x1000"})
+    public String venueSize;
+
+    @Param({"0", "50", "99"})
+    public int fillPercent;
+
+    @Param({"4"})
+    public int numSeats;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private Venue venue;
+
+    private TicketServiceImpl ticketService;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        venue = BenchmarkVenues.create(venueSize, fillPercent, ConcurrencyMode.ROW_LOCKS);
+        ticketService = new TicketServiceImpl(venue, SEAT_HOLD_TIMEOUT, now::get);
+    }
+
+    @Benchmark
+    public Seat findBestSeat() throws Exception {
+        Seat seat = ticketService.findBestSeat();
+        if (seat != null) {
+            venue.processSeat(seat, SeatState.OPEN);
+        }
+        return seat;
+    }
+
+    @Benchmark
+    public SeatHold findAndHoldSeats() {
+        SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, CUSTOMER_EMAIL);
+        //The hold is released by the expiry of a later operation
+        now.addAndGet(CLOCK_STEP);
+        ticketService.collectExpiredSeatHolds();
+        return seatHold;
+    }
+
+    @Benchmark
+    public String reserveSeats() throws Exception {
+        String reservationId = null;
+        SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, CUSTOMER_EMAIL);
+        if (seatHold != null) {
+            reservationId = ticketService.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL);
+            //Give the seats back, as a cancelled reservation would
+            venue.openSelectedSeats(seatHold.getSeatsHold());
+        }
+        //Drain the expiry wheel of the reserved holds
+        now.addAndGet(CLOCK_STEP);
+        ticketService.collectExpiredSeatHolds();
+        return reservationId;
+    }
+
+    @Benchmark
+    public int collectExpiredSeatHolds() {
+        //Nothing is held here : this is the cost of a sweep with no expired hold
+        now.addAndGet(CLOCK_STEP);
+        return ticketService.collectExpiredSeatHolds();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.walmart.labs.ticketReservation.benchmark;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import com.walmart.labs.ticketReservation.model.venue.ConcurrencyMode;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the seat allocation of the Venue
+ * Every operation gives its seats back, so the venue stays at the same fill level for the whole run.
+ * On a 99% full venue some operations find no seats, which is measured as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VenueBenchmark {
+
+    @Param({"100x100", "1000x1000"})
+    public String venueSize;
+
+    @Param({"0", "50", "99"})
+    public int fillPercent;
+
+    @Param({"ROW_LOCKS", "LOCK_FREE"})
+    public ConcurrencyMode concurrencyMode;
+
+    @Param({"4"})
+    public int numSeats;
+
+    private Venue venue;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        venue = BenchmarkVenues.create(venueSize, fillPercent, concurrencyMode);
+    }
+
+    /**
+     * Seats held by one benchmark thread for the whole run
+     */
+    @State(Scope.Thread)
+    public static class HeldSeats {
+
+        private List<Seat> seats;
+
+        @Setup(Level.Trial)
+        public void setUp(VenueBenchmark benchmark) {
+            //null when the venue has no room left for this thread
+            seats = benchmark.venue.holdBestSeats(benchmark.numSeats);
+        }
+    }
+
+    @Benchmark
+    public Seat claimBestOpenSeat() throws Exception {
+        Seat seat = venue.claimBestOpenSeat();
+        if (seat != null) {
+            venue.processSeat(seat, SeatState.OPEN);
+        }
+        return seat;
+    }
+
+    @Benchmark
+    public List<Seat> holdBestSeats() throws Exception {
+        List<Seat> seats = venue.holdBestSeats(numSeats);
+        if (seats != null) {
+            venue.openSelectedSeats(seats);
+        }
+        return seats;
+    }
+
+    @Benchmark
+    public List<Seat> processSeats(HeldSeats heldSeats) throws Exception {
+        if (heldSeats.seats != null) {
+            venue.processSeats(heldSeats.seats, SeatState.RESERVED);
+            venue.processSeats(heldSeats.seats, SeatState.HOLD);
+        }
+        return heldSeats.seats;
+    }
+
+}
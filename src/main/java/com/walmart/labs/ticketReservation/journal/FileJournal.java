@@ -0,0 +1,291 @@
+package com.walmart.labs.ticketReservation.journal;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Journal in a file, written through a FileChannel with group commit.
+ * append() only queues the encoded record, a single writer thread takes everything queued since its last write,
+ * writes it with one gathering write and forces it to disk once. The threads waiting in sync() while the disk
+ * is busy are all released by the next force, so the cost of fsync is shared by all of them.
+ *
+ * Each record is stored as its length, the CRC32 of its bytes and its bytes. The LSN of a record is the position
+ * in the file right after it. Replay stops at the first record which is cut short or does not match its CRC,
+ * ie the last write before a crash, and the file is truncated there.
+ */
+public class FileJournal implements Journal {
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //Signaled when records are queued or the journal is closed
+    private final Condition pendingRecords = lock.newCondition();
+
+    //Signaled when durableLsn moves or the journal fails
+    private final Condition durable = lock.newCondition();
+
+    private final Thread writer;
+
+    //Guarded by lock
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedLsn;
+    private long durableLsn;
+    private boolean recovered;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Open or create the journal file
+     * @param path - the journal file
+     * @throws TicketReservationException - if the file can't be opened
+     */
+    public FileJournal(Path path) throws TicketReservationException {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new TicketReservationException("Could not open the journal " + path, e);
+        }
+        writer = new Thread(this::writeRecords, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void replay(long fromLsn, Consumer<JournalRecord> handler) throws TicketReservationException {
+        lock.lock();
+        try {
+            if (recovered) {
+                throw new TicketReservationException("The journal was already replayed.");
+            }
+            if (fromLsn < 0 || fromLsn > channel.size()) {
+                throw new TicketReservationException("The journal " + path + " has no record at " + fromLsn);
+            }
+            long end = readRecords(fromLsn, handler);
+            if (channel.size() > end) {
+                //Torn write of the last record before a crash
+                channel.truncate(end);
+            }
+            channel.position(end);
+            appendedLsn = end;
+            durableLsn = end;
+            recovered = true;
+        } catch (IOException e) {
+            throw new TicketReservationException("Could not read the journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long append(JournalRecord record) throws TicketReservationException {
+        ByteBuffer body = record.encode();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(body.remaining()).putInt((int) crc.getValue()).flip();
+
+        lock.lock();
+        try {
+            if (!recovered) {
+                //Appending without a replay : skip over the records already there
+                replay(0, skipped -> { });
+            }
+            checkOpen();
+            if (pending.isEmpty()) {
+                pendingRecords.signal();
+            }
+            pending.add(header);
+            pending.add(body);
+            appendedLsn += HEADER_BYTES + body.remaining();
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync(long lsn) throws TicketReservationException {
+        lock.lock();
+        try {
+            //The records appended before a close are still written, only a failure stops the wait
+            while (durableLsn < Math.min(lsn, appendedLsn)) {
+                if (failure != null) {
+                    throw new TicketReservationException("Could not write the journal " + path, failure);
+                }
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() throws TicketReservationException {
+        lock.lock();
+        try {
+            closed = true;
+            pendingRecords.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new TicketReservationException("Could not close the journal " + path, e);
+        }
+
+        if (failure != null) {
+            throw new TicketReservationException("Could not write the journal " + path, failure);
+        }
+    }
+
+    private void checkOpen() throws TicketReservationException {
+        if (failure != null) {
+            throw new TicketReservationException("Could not write the journal " + path, failure);
+        }
+        if (closed) {
+            throw new TicketReservationException("The journal is closed.");
+        }
+    }
+
+    /**
+     * Writer thread : write and force everything queued, until the journal is closed and the queue is empty
+     */
+    private void writeRecords() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long batchLsn;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    pendingRecords.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchLsn = appendedLsn;
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException writeFailure = null;
+            try {
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                writeFailure = e;
+            }
+
+            lock.lock();
+            try {
+                if (writeFailure != null) {
+                    failure = writeFailure;
+                } else {
+                    durableLsn = batchLsn;
+                }
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (writeFailure != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read the records from the given position until the end of the file or the first broken record
+     * @return the position after the last good record
+     */
+    private long readRecords(long position, Consumer<JournalRecord> handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        long readPosition = position;
+        long end = position;
+
+        while (true) {
+            int needed = HEADER_BYTES;
+            if (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return end;
+                }
+                needed = HEADER_BYTES + length;
+                if (buffer.remaining() >= needed) {
+                    ByteBuffer body = buffer.duplicate();
+                    body.limit(start + needed).position(start + HEADER_BYTES);
+                    crc.reset();
+                    crc.update(body.duplicate());
+                    if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                        return end;
+                    }
+
+                    JournalRecord record;
+                    try {
+                        record = JournalRecord.decode(body);
+                    } catch (RuntimeException e) {
+                        return end;
+                    }
+                    buffer.position(start + needed);
+                    end += needed;
+                    handler.accept(record);
+                    continue;
+                }
+            }
+
+            //Not enough bytes for the next record : read more, in a bigger buffer if the record does not fit
+            if (needed > buffer.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(needed);
+                bigger.put(buffer);
+                buffer = bigger;
+            } else {
+                buffer.compact();
+            }
+            int read = channel.read(buffer, readPosition);
+            buffer.flip();
+            if (read <= 0) {
+                return end;
+            }
+            readPosition += read;
+        }
+    }
+
+}
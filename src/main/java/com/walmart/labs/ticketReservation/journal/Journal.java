@@ -0,0 +1,55 @@
+package com.walmart.labs.ticketReservation.journal;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+
+import java.util.function.Consumer;
+
+/**
+ * Generic Interface for the append only log of the state transitions of a TicketService
+ * Every record gets a log sequence number (LSN) which grows with the order of the appends.
+ */
+public interface Journal extends AutoCloseable {
+
+    /**
+     * Read all the records of the journal, in order. Must be called before the first append
+     * @param handler - called for every record
+     * @throws TicketReservationException - if the journal can't be read
+     */
+    default void replay(Consumer<JournalRecord> handler) throws TicketReservationException {
+        replay(0, handler);
+    }
+
+    /**
+     * Read the records of the journal after the given LSN, in order. Must be called before the first append
+     * @param fromLsn - LSN of the last record which is not read, ie the LSN of a snapshot. 0 to read them all
+     * @param handler - called for every record
+     * @throws TicketReservationException - if the journal can't be read or has no record at fromLsn
+     */
+    void replay(long fromLsn, Consumer<JournalRecord> handler) throws TicketReservationException;
+
+    /**
+     * Append a record. It is not durable before sync() returns for its LSN
+     * @param record - the record to append
+     * @return the LSN of the record
+     * @throws TicketReservationException - if the journal failed or is closed
+     */
+    long append(JournalRecord record) throws TicketReservationException;
+
+    /**
+     * @return the LSN of the last record appended, or replayed if none was appended yet
+     */
+    long getLastLsn();
+
+    /**
+     * Wait until the record of the given LSN and all the ones before are durable
+     * @param lsn - LSN returned by append()
+     * @throws TicketReservationException - if the journal failed before the record was durable
+     */
+    void sync(long lsn) throws TicketReservationException;
+
+    /**
+     * Write the pending records and close the journal
+     * @throws TicketReservationException - if the pending records could not be written
+     */
+    void close() throws TicketReservationException;
+}
@@ -0,0 +1,158 @@
+package com.walmart.labs.ticketReservation.journal;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One state transition of a TicketService, as written in the Journal
+ * HOLD - a SeatHold was created with its seats, RELEASE - a SeatHold expired and its seats are OPEN again,
+ * RESERVE - a SeatHold was reserved under a reservationId, CANCEL - a reservation was cancelled and its seats
+ * are OPEN again.
+ * seatHoldIds wrap, so a reservation is told apart by its reservationId : the CANCEL record carries it too.
+ */
+public class JournalRecord {
+
+    public enum Type {
+        HOLD, RELEASE, RESERVE, CANCEL
+    }
+
+    private final Type type;
+    private final int seatHoldId;
+    private final String customerEmail;
+    //Row and seat number of each seat, one after the other
+    private final int[] seats;
+    private final String reservationId;
+
+    private JournalRecord(Type type, int seatHoldId, String customerEmail, int[] seats, String reservationId) {
+        this.type = type;
+        this.seatHoldId = seatHoldId;
+        this.customerEmail = customerEmail;
+        this.seats = seats;
+        this.reservationId = reservationId;
+    }
+
+    public static JournalRecord hold(SeatHold seatHold) {
+        return new JournalRecord(Type.HOLD, seatHold.getSeatHoldId(), seatHold.getCustomerEmail(),
+                seatsOf(seatHold), null);
+    }
+
+    public static JournalRecord release(int seatHoldId) {
+        return new JournalRecord(Type.RELEASE, seatHoldId, null, null, null);
+    }
+
+    /**
+     * The record of a reservation carries the whole SeatHold, so it can be replayed without its HOLD record,
+     * ie after a snapshot which was taken while the hold was being reserved
+     */
+    public static JournalRecord reserve(SeatHold seatHold) {
+        return new JournalRecord(Type.RESERVE, seatHold.getSeatHoldId(), seatHold.getCustomerEmail(),
+                seatsOf(seatHold), seatHold.getReservationId());
+    }
+
+    public static JournalRecord cancel(SeatHold seatHold) {
+        return new JournalRecord(Type.CANCEL, seatHold.getSeatHoldId(), null, null, seatHold.getReservationId());
+    }
+
+    private static int[] seatsOf(SeatHold seatHold) {
+        int[] seats = new int[seatHold.getSeatsHold().size() * 2];
+        int i = 0;
+        for (Seat seat : seatHold.getSeatsHold()) {
+            seats[i++] = seat.getRow();
+            seats[i++] = seat.getSeatNum();
+        }
+        return seats;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public int getNumberOfSeats() {
+        return (seats == null) ? 0 : seats.length / 2;
+    }
+
+    public int getRow(int seat) {
+        return seats[seat * 2];
+    }
+
+    public int getSeatNum(int seat) {
+        return seats[seat * 2 + 1];
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    /**
+     * Binary form of the record : type, seatHoldId, then the email and seats of a HOLD or a RESERVE
+     * and the reservationId of a RESERVE or a CANCEL. A CANCEL written before it had one ends after its seatHoldId
+     */
+    ByteBuffer encode() {
+        byte[] email = (customerEmail == null) ? null : customerEmail.getBytes(StandardCharsets.UTF_8);
+        byte[] reservation = (reservationId == null) ? null : reservationId.getBytes(StandardCharsets.UTF_8);
+        int size = 1 + 4;
+        if (hasSeats(type)) {
+            size += 4 + email.length + 4 + seats.length * 4;
+        }
+        if (reservation != null) {
+            size += 4 + reservation.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) type.ordinal());
+        buffer.putInt(seatHoldId);
+        if (hasSeats(type)) {
+            buffer.putInt(email.length);
+            buffer.put(email);
+            buffer.putInt(seats.length / 2);
+            for (int seat : seats) {
+                buffer.putInt(seat);
+            }
+        }
+        if (reservation != null) {
+            buffer.putInt(reservation.length);
+            buffer.put(reservation);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static JournalRecord decode(ByteBuffer buffer) {
+        Type type = Type.values()[buffer.get()];
+        int seatHoldId = buffer.getInt();
+        if (!hasSeats(type)) {
+            String reservationId = (type == Type.CANCEL && buffer.hasRemaining()) ? readText(buffer) : null;
+            return new JournalRecord(type, seatHoldId, null, null, reservationId);
+        }
+
+        String customerEmail = readText(buffer);
+        int[] seats = new int[buffer.getInt() * 2];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = buffer.getInt();
+        }
+        String reservationId = (type == Type.RESERVE) ? readText(buffer) : null;
+        return new JournalRecord(type, seatHoldId, customerEmail, seats, reservationId);
+    }
+
+    private static boolean hasSeats(Type type) {
+        return type == Type.HOLD || type == Type.RESERVE;
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        byte[] text = new byte[buffer.getInt()];
+        buffer.get(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+}
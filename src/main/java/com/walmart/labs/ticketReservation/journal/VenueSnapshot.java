@@ -0,0 +1,271 @@
+package com.walmart.labs.ticketReservation.journal;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import com.walmart.labs.ticketReservation.model.venue.Section;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact image of the state of a TicketService at a point of its Journal : the seat states packed 2 bits per seat,
+ * the live SeatHolds and the reservations, stored as the HOLD and RESERVE records which would rebuild them.
+ * Recovery loads the latest snapshot and only replays the records of the journal after its LSN.
+ *
+ * The snapshot is taken while holds and reservations go on, so it may already have some of the transitions
+ * logged after its LSN : replaying them must be idempotent. The seat states are computed from the holds and
+ * reservations of the snapshot, so they always match them.
+ */
+public class VenueSnapshot {
+
+    private static final int MAGIC = 0x5645534e;
+
+    //2 : the sections of the venue instead of its rows and columns
+    private static final int VERSION = 2;
+
+    //Same layout as Venue.restoreSeatStates() : the SeatState ordinal, 32 seats in a word from the low bits
+    private static final int BITS_PER_SEAT = 2;
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+    private static final long STATE_MASK = (1L << BITS_PER_SEAT) - 1;
+
+    private static final int MAX_SECTIONS = 1 << 16;
+
+    private final long lsn;
+    //Ids handed out before the snapshot are below these, even the ones of the holds already released
+    private final int nextSeatHoldId;
+    private final int nextReservationId;
+    //Rows and seats each row of every section of the venue
+    private final int[] sections;
+    private final long[] seatStates;
+    private final List<JournalRecord> holds;
+    private final List<JournalRecord> reservations;
+
+    private VenueSnapshot(long lsn, int nextSeatHoldId, int nextReservationId, int[] sections,
+                          long[] seatStates, List<JournalRecord> holds, List<JournalRecord> reservations) {
+        this.lsn = lsn;
+        this.nextSeatHoldId = nextSeatHoldId;
+        this.nextReservationId = nextReservationId;
+        this.sections = sections;
+        this.seatStates = seatStates;
+        this.holds = holds;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Build a snapshot
+     * @param lsn - the LSN of the journal read before the holds and reservations
+     * @param nextSeatHoldId - a seatHoldId created after the LSN was read
+     * @param nextReservationId - a reservationId created after the LSN was read
+     * @param venue - the venue of the seats
+     * @param seatHolds - the live SeatHolds
+     * @param reservedHolds - the reserved SeatHolds
+     * @return the snapshot
+     */
+    public static VenueSnapshot of(long lsn, int nextSeatHoldId, int nextReservationId, Venue venue,
+                                   Collection<SeatHold> seatHolds, Collection<SeatHold> reservedHolds) {
+        long[] seatStates = new long[packedLength(venue.getMaxOccupancy())];
+        List<JournalRecord> holds = new ArrayList<>(seatHolds.size());
+        for (SeatHold seatHold : seatHolds) {
+            holds.add(JournalRecord.hold(seatHold));
+            pack(seatStates, venue, seatHold, SeatState.HOLD);
+        }
+        List<JournalRecord> reservations = new ArrayList<>(reservedHolds.size());
+        for (SeatHold seatHold : reservedHolds) {
+            reservations.add(JournalRecord.reserve(seatHold));
+            pack(seatStates, venue, seatHold, SeatState.RESERVED);
+        }
+        return new VenueSnapshot(lsn, nextSeatHoldId, nextReservationId, layoutOf(venue), seatStates, holds,
+                reservations);
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public int getNextSeatHoldId() {
+        return nextSeatHoldId;
+    }
+
+    public int getNextReservationId() {
+        return nextReservationId;
+    }
+
+    /**
+     * @param venue - a venue
+     * @return true if the venue has the same sections, rows and seats each row as the venue of the snapshot
+     */
+    public boolean isSnapshotOf(Venue venue) {
+        return Arrays.equals(sections, layoutOf(venue));
+    }
+
+    /**
+     * @return the seat states, in the layout of Venue.restoreSeatStates()
+     */
+    public long[] getSeatStates() {
+        return seatStates;
+    }
+
+    public List<JournalRecord> getHolds() {
+        return holds;
+    }
+
+    public List<JournalRecord> getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Write the snapshot to a temporary file and move it over the previous one, so a crash while writing
+     * leaves the previous snapshot in place
+     * @param path - the snapshot file
+     * @throws TicketReservationException - if the file can't be written
+     */
+    public void write(Path path) throws TicketReservationException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(nextSeatHoldId);
+            out.writeInt(nextReservationId);
+            out.writeInt(sections.length / 2);
+            for (int size : sections) {
+                out.writeInt(size);
+            }
+            for (long word : seatStates) {
+                out.writeLong(word);
+            }
+            writeRecords(out, holds);
+            writeRecords(out, reservations);
+            //Checksum of everything before it
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            //On disk before it replaces the previous snapshot
+            file.getChannel().force(true);
+        } catch (IOException e) {
+            throw new TicketReservationException("Could not write the snapshot " + temporary, e);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TicketReservationException("Could not write the snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Read a snapshot
+     * @param path - the snapshot file
+     * @return the snapshot, null if there is no snapshot file yet
+     * @throws TicketReservationException - if the file can't be read or is corrupted
+     */
+    public static VenueSnapshot read(Path path) throws TicketReservationException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new TicketReservationException("Not a snapshot : " + path);
+            }
+            long lsn = in.readLong();
+            int nextSeatHoldId = in.readInt();
+            int nextReservationId = in.readInt();
+            int sectionCount = in.readInt();
+            if (sectionCount <= 0 || sectionCount > MAX_SECTIONS) {
+                throw new TicketReservationException("Corrupted snapshot : " + path);
+            }
+            int[] sections = new int[sectionCount * 2];
+            long seatCount = 0;
+            for (int i = 0; i < sections.length; i += 2) {
+                sections[i] = in.readInt();
+                sections[i + 1] = in.readInt();
+                if (sections[i] <= 0 || sections[i + 1] <= 0) {
+                    throw new TicketReservationException("Corrupted snapshot : " + path);
+                }
+                seatCount += (long) sections[i] * sections[i + 1];
+            }
+            if (seatCount > Integer.MAX_VALUE) {
+                throw new TicketReservationException("Corrupted snapshot : " + path);
+            }
+            long[] seatStates = new long[packedLength((int) seatCount)];
+            for (int i = 0; i < seatStates.length; i++) {
+                seatStates[i] = in.readLong();
+            }
+            List<JournalRecord> holds = readRecords(in);
+            List<JournalRecord> reservations = readRecords(in);
+            int checksum = (int) crc.getValue();
+            if (in.readInt() != checksum) {
+                throw new TicketReservationException("Corrupted snapshot : " + path);
+            }
+            return new VenueSnapshot(lsn, nextSeatHoldId, nextReservationId, sections, seatStates, holds, reservations);
+        } catch (IOException | RuntimeException e) {
+            throw new TicketReservationException("Could not read the snapshot " + path, e);
+        }
+    }
+
+    private static void writeRecords(DataOutputStream out, List<JournalRecord> records) throws IOException {
+        out.writeInt(records.size());
+        for (JournalRecord record : records) {
+            ByteBuffer body = record.encode();
+            out.writeInt(body.remaining());
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        }
+    }
+
+    private static List<JournalRecord> readRecords(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<JournalRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            records.add(JournalRecord.decode(ByteBuffer.wrap(body)));
+        }
+        return records;
+    }
+
+    private static int[] layoutOf(Venue venue) {
+        List<Section> venueSections = venue.getSections();
+        int[] layout = new int[venueSections.size() * 2];
+        for (int i = 0; i < venueSections.size(); i++) {
+            layout[2 * i] = venueSections.get(i).getNumberOfRows();
+            layout[2 * i + 1] = venueSections.get(i).getNumberOfSeatsEachRow();
+        }
+        return layout;
+    }
+
+    private static void pack(long[] seatStates, Venue venue, SeatHold seatHold, SeatState seatState) {
+        for (Seat seat : seatHold.getSeatsHold()) {
+            int index = venue.getSeatIndex(seat.getRow(), seat.getSeatNum());
+            int shift = (index % SEATS_PER_WORD) * BITS_PER_SEAT;
+            seatStates[index / SEATS_PER_WORD] = (seatStates[index / SEATS_PER_WORD] & ~(STATE_MASK << shift))
+                    | ((long) seatState.ordinal() << shift);
+        }
+    }
+
+    private static int packedLength(int seatCount) {
+        return (seatCount + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+    }
+
+}
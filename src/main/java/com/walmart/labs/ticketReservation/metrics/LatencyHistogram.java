@@ -0,0 +1,129 @@
+package com.walmart.labs.ticketReservation.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with log-linear buckets, in the spirit of HdrHistogram.
+ * Every power of two range is cut in SUB_BUCKETS linear buckets, so a recorded value is known within 12.5%
+ * whatever its magnitude, from a few nanoseconds to hours, with a fixed array of counts.
+ * Recording is one bucket increment and never allocates, it can be called from any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //Values below SUB_BUCKETS have one bucket each, then SUB_BUCKETS buckets per power of two up to 2^63
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder totalCount = new LongAdder();
+
+    private final LongAdder totalValue = new LongAdder();
+
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a value
+     * @param value - the value, ie a latency in nanoseconds. Negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.increment();
+        totalValue.add(value);
+        maxValue.accumulate(value);
+    }
+
+    /**
+     * Copy of the histogram at this time
+     * The counts are read one by one while other threads may record, the copy is consistent enough for monitoring
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = counts.get(i);
+        }
+        return new Snapshot(bucketCounts, totalCount.sum(), totalValue.sum(), maxValue.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    //Highest value which falls in the bucket
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a LatencyHistogram
+     */
+    public static class Snapshot {
+
+        private final long[] bucketCounts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] bucketCounts, long count, long total, long max) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return (count == 0) ? 0 : (double) total / count;
+        }
+
+        /**
+         * Value at the given percentile
+         * @param percentile - between 0 and 100, ie 99.9
+         * @return the highest value of the bucket holding the percentile, never above the max. 0 when empty
+         */
+        public long getValueAtPercentile(double percentile) {
+            long recorded = 0;
+            for (long bucketCount : bucketCounts) {
+                recorded += bucketCount;
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+
+}
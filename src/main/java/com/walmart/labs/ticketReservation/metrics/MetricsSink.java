@@ -0,0 +1,25 @@
+package com.walmart.labs.ticketReservation.metrics;
+
+/**
+ * Generic Interface for the destination of the metrics, ie a log, a time series database or a test
+ */
+public interface MetricsSink {
+
+    /**
+     * @param name - name of the counter
+     * @param value - total since the service started
+     */
+    void counter(String name, long value);
+
+    /**
+     * @param name - name of the gauge
+     * @param value - current value
+     */
+    void gauge(String name, long value);
+
+    /**
+     * @param name - name of the histogram
+     * @param snapshot - copy of the histogram, values in nanoseconds
+     */
+    void histogram(String name, LatencyHistogram.Snapshot snapshot);
+}
@@ -0,0 +1,276 @@
+package com.walmart.labs.ticketReservation.metrics;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one TicketService, and the seat gauges of its Venue
+ * Recording is a few LongAdder and histogram increments, cheap enough to stay on in production.
+ * The metrics are read through JMX once registerMBean() is called, or pushed to any MetricsSink with report().
+ */
+public class TicketServiceMetrics implements TicketServiceMetricsMBean {
+
+    private static final String MBEAN_DOMAIN = "com.walmart.labs.ticketReservation";
+
+    private final Venue venue;
+
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+    private final LatencyHistogram reserveLatency = new LatencyHistogram();
+    private final LatencyHistogram findBestSeatLatency = new LatencyHistogram();
+    private final LatencyHistogram expirySweepLatency = new LatencyHistogram();
+
+    private final LongAdder holds = new LongAdder();
+    private final LongAdder holdFailures = new LongAdder();
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder reserveFailures = new LongAdder();
+    private final LongAdder indeterminateReservations = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder cancelFailures = new LongAdder();
+    private final LongAdder expiredHolds = new LongAdder();
+    private final LongAdder expiredSeats = new LongAdder();
+
+    private ObjectName objectName;
+
+    /**
+     * @param venue - the venue of the service, for the seat gauges and the lock waits
+     */
+    public TicketServiceMetrics(Venue venue) {
+        this.venue = venue;
+    }
+
+    /**
+     * @param held - true if the seats were held, false if the service returned null
+     * @param nanos - latency of the call, negative when not timed
+     */
+    public void recordHold(boolean held, long nanos) {
+        (held ? holds : holdFailures).increment();
+        if (nanos >= 0) {
+            holdLatency.record(nanos);
+        }
+    }
+
+    /**
+     * @param reserved - true if the seats were reserved, false if the service returned null
+     * @param nanos - latency of the call, negative when not timed
+     */
+    public void recordReserve(boolean reserved, long nanos) {
+        (reserved ? reservations : reserveFailures).increment();
+        if (nanos >= 0) {
+            reserveLatency.record(nanos);
+        }
+    }
+
+    /**
+     * A reservation whose journal failed, and which could not be cancelled in the journal either : it is kept,
+     * though the call returned null
+     */
+    public void recordIndeterminateReservation() {
+        indeterminateReservations.increment();
+    }
+
+    /**
+     * @param cancelled - true if the reservation was cancelled, false if the service returned null
+     */
+    public void recordCancel(boolean cancelled) {
+        (cancelled ? cancellations : cancelFailures).increment();
+    }
+
+    public void recordFindBestSeat(long nanos) {
+        findBestSeatLatency.record(nanos);
+    }
+
+    /**
+     * @param numSeats - number of seats the expired hold released
+     */
+    public void recordExpiredHold(int numSeats) {
+        expiredHolds.increment();
+        expiredSeats.add(numSeats);
+    }
+
+    public void recordExpirySweep(long nanos) {
+        expirySweepLatency.record(nanos);
+    }
+
+    public LatencyHistogram getHoldLatency() {
+        return holdLatency;
+    }
+
+    public LatencyHistogram getReserveLatency() {
+        return reserveLatency;
+    }
+
+    public LatencyHistogram getFindBestSeatLatency() {
+        return findBestSeatLatency;
+    }
+
+    public LatencyHistogram getExpirySweepLatency() {
+        return expirySweepLatency;
+    }
+
+    public LatencyHistogram getLockWaitLatency() {
+        return venue.getLockWaitHistogram();
+    }
+
+    @Override
+    public int getOpenSeats() {
+        return venue.getOpenSeatCount();
+    }
+
+    @Override
+    public int getHeldSeats() {
+        return venue.getHeldSeatCount();
+    }
+
+    @Override
+    public int getReservedSeats() {
+        return venue.getReservedSeatCount();
+    }
+
+    @Override
+    public long getHolds() {
+        return holds.sum();
+    }
+
+    @Override
+    public long getHoldFailures() {
+        return holdFailures.sum();
+    }
+
+    @Override
+    public long getReservations() {
+        return reservations.sum();
+    }
+
+    @Override
+    public long getReserveFailures() {
+        return reserveFailures.sum();
+    }
+
+    @Override
+    public long getIndeterminateReservations() {
+        return indeterminateReservations.sum();
+    }
+
+    @Override
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    @Override
+    public long getCancelFailures() {
+        return cancelFailures.sum();
+    }
+
+    @Override
+    public long getExpiredHolds() {
+        return expiredHolds.sum();
+    }
+
+    @Override
+    public long getExpiredSeats() {
+        return expiredSeats.sum();
+    }
+
+    @Override
+    public long getHoldLatencyP50() {
+        return holdLatency.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getHoldLatencyP99() {
+        return holdLatency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getReserveLatencyP50() {
+        return reserveLatency.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getReserveLatencyP99() {
+        return reserveLatency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getExpirySweepLatencyP99() {
+        return expirySweepLatency.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLockWaits() {
+        return getLockWaitLatency().snapshot().getCount();
+    }
+
+    @Override
+    public long getLockWaitP99() {
+        return getLockWaitLatency().snapshot().getValueAtPercentile(99);
+    }
+
+    /**
+     * Push all the metrics to the sink
+     * @param sink - the destination of the metrics
+     */
+    public void report(MetricsSink sink) {
+        sink.gauge("seats.open", getOpenSeats());
+        sink.gauge("seats.held", getHeldSeats());
+        sink.gauge("seats.reserved", getReservedSeats());
+        sink.counter("holds", getHolds());
+        sink.counter("holds.failed", getHoldFailures());
+        sink.counter("reservations", getReservations());
+        sink.counter("reservations.failed", getReserveFailures());
+        sink.counter("reservations.indeterminate", getIndeterminateReservations());
+        sink.counter("cancellations", getCancellations());
+        sink.counter("cancellations.failed", getCancelFailures());
+        sink.counter("holds.expired", getExpiredHolds());
+        sink.counter("seats.expired", getExpiredSeats());
+        sink.histogram("latency.hold", holdLatency.snapshot());
+        sink.histogram("latency.reserve", reserveLatency.snapshot());
+        sink.histogram("latency.findBestSeat", findBestSeatLatency.snapshot());
+        sink.histogram("latency.expirySweep", expirySweepLatency.snapshot());
+        sink.histogram("latency.lockWait", getLockWaitLatency().snapshot());
+    }
+
+    /**
+     * Register the metrics in the platform MBeanServer
+     * @param name - name of the service, ie the event id
+     * @throws TicketReservationException - if the name is invalid or already registered
+     */
+    public synchronized void registerMBean(String name) throws TicketReservationException {
+        if (name == null) {
+            throw new TicketReservationException("You need to provide the name of the metrics.");
+        }
+        if (objectName != null) {
+            throw new TicketReservationException("Metrics are already registered as " + objectName);
+        }
+        try {
+            ObjectName mbeanName = new ObjectName(MBEAN_DOMAIN + ":type=TicketService,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, mbeanName);
+            objectName = mbeanName;
+        } catch (JMException e) {
+            throw new TicketReservationException("Could not register the metrics.", e);
+        }
+    }
+
+    /**
+     * Remove the metrics from the platform MBeanServer, if registered
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mbeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            //Already unregistered
+        }
+        objectName = null;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.walmart.labs.ticketReservation.metrics;
+
+/**
+ * JMX view of the TicketServiceMetrics. Latencies are in nanoseconds
+ */
+public interface TicketServiceMetricsMBean {
+
+    int getOpenSeats();
+
+    int getHeldSeats();
+
+    int getReservedSeats();
+
+    long getHolds();
+
+    long getHoldFailures();
+
+    long getReservations();
+
+    long getReserveFailures();
+
+    long getIndeterminateReservations();
+
+    long getCancellations();
+
+    long getCancelFailures();
+
+    long getExpiredHolds();
+
+    long getExpiredSeats();
+
+    long getHoldLatencyP50();
+
+    long getHoldLatencyP99();
+
+    long getReserveLatencyP50();
+
+    long getReserveLatencyP99();
+
+    long getExpirySweepLatencyP99();
+
+    long getLockWaits();
+
+    long getLockWaitP99();
+}
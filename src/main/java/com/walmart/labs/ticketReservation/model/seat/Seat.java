@@ -2,7 +2,7 @@ package com.walmart.labs.ticketReservation.model.seat;
 
 /**
  * Seat is the atomic entity in this service. Seat consists of the row number and the seatNum.
- * The id is formed in this format : "rowNum-seatNum"
+ * The id is formed in this format : "rowNum-seatNum", only when it is asked for
  * Initially all seats are opened when the Venue begins
  */
 public class Seat {
@@ -11,12 +11,12 @@ public class Seat {
     private String id;
     private int row;
     private int seatNum;
-    private SeatState state;
+    //Changed under the row lock of the Venue, but read without it
+    private volatile SeatState state;
 
     public Seat(int row, int seatNum) {
         this.row = row;
         this.seatNum = seatNum;
-        this.id = String.format("%d-%d", this.row, this.seatNum);
         state = SeatState.OPEN;
     }
 
@@ -25,6 +25,9 @@ public class Seat {
     }
 
     public String getId() {
+        if (id == null) {
+            id = row + "-" + seatNum;
+        }
         return id;
     }
 
@@ -52,15 +55,16 @@ public class Seat {
         state = SeatState.PROCESSING;
     }
 
+    //Same as comparing the ids, without building them
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return 31 * row + seatNum;
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof Seat) {
-            return this.id.equals(((Seat) o).id);
+            return this.row == ((Seat) o).row && this.seatNum == ((Seat) o).seatNum;
         } else {
             throw new IllegalArgumentException(String.format("Type is invalid: %s", o.getClass().getName()));
         }
@@ -2,8 +2,8 @@ package com.walmart.labs.ticketReservation.model.seat;
 
 import com.walmart.labs.ticketReservation.exception.TicketReservationException;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -17,14 +17,15 @@ public class SeatHold {
     private final int seatHoldId;
     private final String customerEmail;
     private List<Seat> seatsHold;
-    private Date creationTS;
+    //Milliseconds since the epoch, the Date is only created when asked for
+    private final long creationTS;
     private String reservationId;
 
     public SeatHold(int seatHoldId, String customerEmail, List<Seat> seatsHold) throws TicketReservationException {
         this.seatHoldId = seatHoldId;
         this.customerEmail = customerEmail;
-        this.seatsHold = new LinkedList<Seat>(seatsHold);
-        creationTS = new Date();
+        this.seatsHold = new ArrayList<Seat>(seatsHold);
+        creationTS = System.currentTimeMillis();
     }
 
     public int getSeatHoldId() {
@@ -40,7 +41,7 @@ public class SeatHold {
     }
 
     public Date getCreationTS() {
-        return creationTS;
+        return new Date(creationTS);
     }
 
     public String getReservationId() {
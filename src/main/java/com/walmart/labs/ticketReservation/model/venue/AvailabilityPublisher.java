@@ -0,0 +1,137 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes AvailabilitySnapshots of a Venue for the seat maps, so polling them never reads Seat objects nor takes
+ * a lock of the venue. A snapshot is copied from the free seat index of the sections, one 64 seats word at a time,
+ * and only the rows which changed since the previous snapshot get a new bitset.
+ *
+ * Publishing reads the seats while holds go on : a seat changed during the copy may be seen before or after
+ * its change, and is seen in the next snapshot. Readers always get a whole snapshot which never changes.
+ * The venue only counts its changes for the publisher, nothing is published on the write path.
+ */
+public class AvailabilityPublisher {
+
+    private static final int WORD_BITS = 64;
+
+    private final Venue venue;
+
+    private final int[] seatsEachRow;
+
+    private volatile AvailabilitySnapshot snapshot;
+
+    //Changes of the venue seen by the latest snapshot, guarded by this
+    private long publishedChanges;
+
+    //Thread which publishes the snapshots, only when started
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Initialize the publisher and publish the first snapshot, version 1
+     * @param venue - the venue of the seat map
+     * @throws TicketReservationException - if there is no venue
+     */
+    public AvailabilityPublisher(Venue venue) throws TicketReservationException {
+        if (venue == null) {
+            throw new TicketReservationException("You need to provide the venue.");
+        }
+
+        this.venue = venue;
+        this.seatsEachRow = new int[venue.getNumberOfRows()];
+        for (int row = 0; row < seatsEachRow.length; row++) {
+            seatsEachRow[row] = venue.getSectionOfRow(row).getNumberOfSeatsEachRow();
+        }
+        publish();
+    }
+
+    /**
+     * @return the latest snapshot
+     */
+    public AvailabilitySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param sinceVersion - the version the client has, 0 when it has none
+     * @return the rows changed in the latest snapshot since that version
+     */
+    public AvailabilitySnapshot.Delta getDelta(long sinceVersion) {
+        return snapshot.changesSince(sinceVersion);
+    }
+
+    /**
+     * Publish a new snapshot if the venue changed since the latest one
+     * @return the latest snapshot
+     */
+    public synchronized AvailabilitySnapshot publish() {
+        //Read before the seats : a change counted after it is published by the next call
+        long changes = venue.getAvailabilityChanges();
+        AvailabilitySnapshot previous = snapshot;
+        if (previous != null && changes == publishedChanges) {
+            return previous;
+        }
+
+        long version = (previous == null) ? 1 : previous.getVersion() + 1;
+        long[][] openSeats = new long[seatsEachRow.length][];
+        long[] rowVersions = new long[seatsEachRow.length];
+        int openSeatCount = 0;
+        long[] words = null;
+        for (int row = 0; row < seatsEachRow.length; row++) {
+            int wordsPerRow = (seatsEachRow[row] + WORD_BITS - 1) / WORD_BITS;
+            if (words == null || words.length != wordsPerRow) {
+                words = new long[wordsPerRow];
+            }
+            venue.getSectionOfRow(row).copyOpenSeats(row, words);
+            for (long word : words) {
+                openSeatCount += Long.bitCount(word);
+            }
+
+            if (previous != null && Arrays.equals(words, previous.openSeatsOfRow(row))) {
+                openSeats[row] = previous.openSeatsOfRow(row);
+                rowVersions[row] = previous.getRowVersion(row);
+            } else {
+                openSeats[row] = words;
+                rowVersions[row] = version;
+                words = null;
+            }
+        }
+
+        snapshot = new AvailabilitySnapshot(version, seatsEachRow, openSeats, rowVersions, openSeatCount);
+        publishedChanges = changes;
+        return snapshot;
+    }
+
+    /**
+     * Start a background thread which publishes a snapshot periodically, when the venue changed
+     * @param period - time between two snapshots, ie the most a seat map can lag behind the venue
+     * @param unit - unit of the period
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::publish, period, period, unit);
+    }
+
+    /**
+     * Stop the background thread started by start()
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+}
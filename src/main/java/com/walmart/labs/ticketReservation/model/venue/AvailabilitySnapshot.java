@@ -0,0 +1,162 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import java.util.Arrays;
+
+/**
+ * Immutable view of the OPEN seats of a Venue, published by an AvailabilityPublisher for the seat maps.
+ * Every row is a bitset : bit c of word c / 64 is set when seat c of the row is open. A snapshot has a version,
+ * one more than the previous snapshot of its publisher, and keeps the version in which each row last changed,
+ * so a client which already has a version only needs the rows changed since (see changesSince()).
+ *
+ * The rows which did not change are shared with the previous snapshot, a snapshot never changes once published.
+ */
+public class AvailabilitySnapshot {
+
+    private static final int WORD_BITS = 64;
+
+    private final long version;
+
+    private final int[] seatsEachRow;
+
+    //Open seat bitset of each row
+    private final long[][] openSeats;
+
+    //Version of the snapshot in which each row last changed
+    private final long[] rowVersions;
+
+    private final int openSeatCount;
+
+    AvailabilitySnapshot(long version, int[] seatsEachRow, long[][] openSeats, long[] rowVersions, int openSeatCount) {
+        this.version = version;
+        this.seatsEachRow = seatsEachRow;
+        this.openSeats = openSeats;
+        this.rowVersions = rowVersions;
+        this.openSeatCount = openSeatCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNumberOfRows() {
+        return openSeats.length;
+    }
+
+    /**
+     * @param row - row number
+     * @return the number of seats of the row
+     */
+    public int getNumberOfSeats(int row) {
+        return seatsEachRow[row];
+    }
+
+    public int getOpenSeatCount() {
+        return openSeatCount;
+    }
+
+    /**
+     * @param row - row number
+     * @param column - column number
+     * @return true if the seat was OPEN, false if it was not or is not part of the venue
+     */
+    public boolean isOpen(int row, int column) {
+        if (row < 0 || row >= openSeats.length || column < 0 || column >= seatsEachRow[row]) {
+            return false;
+        }
+        return (openSeats[row][column / WORD_BITS] & (1L << column)) != 0;
+    }
+
+    /**
+     * @param row - row number
+     * @return a copy of the open seat bitset of the row
+     */
+    public long[] getOpenSeats(int row) {
+        return openSeats[row].clone();
+    }
+
+    /**
+     * @param row - row number
+     * @return the version of the snapshot in which the row last changed
+     */
+    public long getRowVersion(int row) {
+        return rowVersions[row];
+    }
+
+    long[] openSeatsOfRow(int row) {
+        return openSeats[row];
+    }
+
+    /**
+     * The rows changed after the given version, ie the ones to apply on the snapshot a client already has
+     * @param sinceVersion - the version the client has, 0 when it has none
+     * @return the changed rows. All of them if the version is not one of this publisher yet
+     */
+    public Delta changesSince(long sinceVersion) {
+        boolean all = sinceVersion <= 0 || sinceVersion > version;
+        int count = 0;
+        for (long rowVersion : rowVersions) {
+            if (all || rowVersion > sinceVersion) {
+                count++;
+            }
+        }
+
+        int[] rows = new int[count];
+        long[][] rowOpenSeats = new long[count][];
+        int i = 0;
+        for (int row = 0; row < rowVersions.length; row++) {
+            if (all || rowVersions[row] > sinceVersion) {
+                rows[i] = row;
+                rowOpenSeats[i] = openSeats[row];
+                i++;
+            }
+        }
+        return new Delta(all ? 0 : sinceVersion, version, rows, rowOpenSeats);
+    }
+
+    /**
+     * Rows of an AvailabilitySnapshot which changed since an older version
+     */
+    public static class Delta {
+
+        private final long fromVersion;
+        private final long version;
+        //Changed rows, in increasing order
+        private final int[] rows;
+        private final long[][] openSeats;
+
+        private Delta(long fromVersion, long version, int[] rows, long[][] openSeats) {
+            this.fromVersion = fromVersion;
+            this.version = version;
+            this.rows = rows;
+            this.openSeats = openSeats;
+        }
+
+        /**
+         * @return the version the delta applies to, 0 when it holds every row
+         */
+        public long getFromVersion() {
+            return fromVersion;
+        }
+
+        /**
+         * @return the version of the snapshot once the delta is applied
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public int[] getRows() {
+            return rows.clone();
+        }
+
+        /**
+         * @param row - row number, one of getRows()
+         * @return a copy of the open seat bitset of the row, null if the row did not change
+         */
+        public long[] getOpenSeats(int row) {
+            int i = Arrays.binarySearch(rows, row);
+            return (i < 0) ? null : openSeats[i].clone();
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+/**
+ * This ENUM defines how a Venue protects its seat states from concurrent changes.
+ */
+public enum ConcurrencyMode {
+
+    ROW_LOCKS("Seat states are changed under the lock of their row. Blocks of seats are claimed all at once."),
+    LOCK_FREE("Seat states are changed with compare-and-set only. Threads retry on a seat instead of blocking.");
+
+    private final String modeDesc;
+
+    /**
+     * To initialize the ConcurrencyMode ENUM
+     *
+     * @param modeDesc - The description for the given the ENUM
+     */
+    ConcurrencyMode(String modeDesc) {
+        this.modeDesc = modeDesc;
+    }
+
+    /**
+     * Get the Description for the given ENUM concurrencyMode
+     *
+     * @return The String corresponding to the ENUM concurrencyMode description
+     */
+    public String getModeDesc() {
+        return modeDesc;
+    }
+}
@@ -0,0 +1,259 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Index of the OPEN seats in a Venue.
+ * Every row keeps a bitset of its taken seats (bit set = seat is not open) and a summary bitset keeps the rows
+ * which are full. Finding the best open seat skips the full rows 64 at a time and then the full words of the row,
+ * so the lookup costs the same on an empty or an almost sold out venue.
+ * Each row also caches its longest run of adjacent open seats, so a block of N seats only looks inside
+ * the rows which can fit it. The cache is refreshed lazily the next time the row is searched.
+ * A new venue has all its seats open and every bit, count and cache entry of the index is zero for it,
+ * so building the index is only allocating its arrays.
+ *
+ * All the bits are changed with CAS, so the index can be used with or without the row locks of the Venue.
+ * Without them it is only a hint : a seat found open here must still be claimed with a CAS on its state.
+ * The longest run cache is only exact while holding the row lock (ConcurrencyMode.ROW_LOCKS).
+ */
+class FreeSeatIndex {
+
+    static final int STALE_RUN = -1;
+
+    private static final int WORD_BITS = 64;
+
+    private final int rows;
+
+    private final int columns;
+
+    private final int wordsPerRow;
+
+    //Bits of the seats of the last word of a row, the others are always zero
+    private final long lastWordMask;
+
+    //Taken seat bits : wordsPerRow words for each row, row after row
+    private final AtomicLongArray takenSeats;
+
+    //Row summary : bit r is set when row r has no open seat
+    private final AtomicLongArray fullRows;
+
+    //Longest run of adjacent open seats in each row plus one, zero when the row changed since
+    private final AtomicIntegerArray longestRun;
+
+    /**
+     * Initialize the index with all the seats open
+     * @param rows - Number of rows in the Venue
+     * @param columns - Number of seats each row
+     */
+    FreeSeatIndex(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = wordCount(columns);
+        this.lastWordMask = lowBits(columns - (wordsPerRow - 1) * WORD_BITS);
+        this.takenSeats = new AtomicLongArray(rows * wordsPerRow);
+        this.fullRows = new AtomicLongArray(wordCount(rows));
+        this.longestRun = new AtomicIntegerArray(rows);
+    }
+
+    /**
+     * Mark the seat as open
+     * @param row - row number
+     * @param column - column number
+     */
+    void markOpen(int row, int column) {
+        clearBit(takenSeats, row * wordsPerRow + column / WORD_BITS, 1L << column);
+        longestRun.set(row, 0);
+        clearBit(fullRows, row / WORD_BITS, 1L << row);
+    }
+
+    /**
+     * Mark the seat as taken (any state other than OPEN)
+     * @param row - row number
+     * @param column - column number
+     */
+    void markTaken(int row, int column) {
+        markTaken(row, column, 1);
+    }
+
+    /**
+     * Mark a run of adjacent seats in one row as taken
+     * @param row - row number
+     * @param column - first column of the run
+     * @param count - number of seats in the run
+     */
+    void markTaken(int row, int column, int count) {
+        int base = row * wordsPerRow;
+        int end = column + count;
+        while (column < end) {
+            int word = column / WORD_BITS;
+            int bits = Math.min(end, (word + 1) * WORD_BITS) - column;
+            setBit(takenSeats, base + word, lowBits(bits) << column);
+            column += bits;
+        }
+        longestRun.set(row, 0);
+        if (isRowFull(row)) {
+            setBit(fullRows, row / WORD_BITS, 1L << row);
+            //A seat of the row may have been opened concurrently before the summary bit was set
+            if (!isRowFull(row)) {
+                clearBit(fullRows, row / WORD_BITS, 1L << row);
+            }
+        }
+    }
+
+    boolean isOpen(int row, int column) {
+        return (takenSeats.get(row * wordsPerRow + column / WORD_BITS) & (1L << column)) == 0;
+    }
+
+    /**
+     * Copy the open seats of the row as a bitset : bit c of word c / 64 is set when seat c is open. Lock free,
+     * each word is read at once but the words of a row may be read at different times
+     * @param row - row number
+     * @param words - receives wordsPerRow words
+     */
+    void copyOpenSeats(int row, long[] words) {
+        int base = row * wordsPerRow;
+        for (int word = 0; word < wordsPerRow - 1; word++) {
+            words[word] = ~takenSeats.get(base + word);
+        }
+        words[wordsPerRow - 1] = ~takenSeats.get(base + wordsPerRow - 1) & lastWordMask;
+    }
+
+    /**
+     * Find the next row which has at least one open seat. Lock free hint.
+     * @param fromRow - the first row to look at
+     * @return the row number, -1 if no row from there has an open seat
+     */
+    int nextOpenRow(int fromRow) {
+        if (fromRow >= rows) {
+            return -1;
+        }
+        int word = fromRow / WORD_BITS;
+        long bits = ~fullRows.get(word) & (-1L << fromRow);
+        while (bits == 0) {
+            if (++word == fullRows.length()) {
+                return -1;
+            }
+            bits = ~fullRows.get(word);
+        }
+        int row = word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+        return row < rows ? row : -1;
+    }
+
+    /**
+     * Cached longest run of open seats in the row. Lock free hint.
+     * @return the longest run, STALE_RUN if it needs to be computed again under the row lock
+     */
+    int longestRunHint(int row) {
+        return longestRun.get(row) - 1;
+    }
+
+    /**
+     * Find the left most open seat of the row at or after the given column
+     * @return the column, -1 if there is none
+     */
+    int nextOpenColumn(int row, int fromColumn) {
+        int column = nextOpen(row, fromColumn);
+        return column < columns ? column : -1;
+    }
+
+    /**
+     * Find the left most run of adjacent open seats in the row
+     * @param row - row number
+     * @param count - number of adjacent seats needed
+     * @param fromColumn - the run starts at or after this column
+     * @return the column of the first seat of the run, -1 if the row can't fit it
+     */
+    int findRun(int row, int count, int fromColumn) {
+        if (count <= 0) {
+            return -1;
+        }
+        int start = nextOpen(row, fromColumn);
+        while (start < columns) {
+            int end = nextTaken(row, start);
+            if (end - start >= count) {
+                return start;
+            }
+            start = nextOpen(row, end);
+        }
+        return -1;
+    }
+
+    /**
+     * Longest run of open seats in the row, computed again if the row changed since. Caller holds the row lock.
+     */
+    int longestRun(int row) {
+        int longest = longestRun.get(row) - 1;
+        if (longest == STALE_RUN) {
+            longest = 0;
+            int start = nextOpen(row, 0);
+            while (start < columns) {
+                int end = nextTaken(row, start);
+                longest = Math.max(longest, end - start);
+                start = nextOpen(row, end);
+            }
+            longestRun.set(row, longest + 1);
+        }
+        return longest;
+    }
+
+    //First open column at or after the given column, columns if there is none
+    private int nextOpen(int row, int column) {
+        return nextBit(row, column, false);
+    }
+
+    //First taken column at or after the given column, columns if there is none
+    private int nextTaken(int row, int column) {
+        return nextBit(row, column, true);
+    }
+
+    private int nextBit(int row, int column, boolean taken) {
+        if (column >= columns) {
+            return columns;
+        }
+        int base = row * wordsPerRow;
+        int word = column / WORD_BITS;
+        long bits = (taken ? takenSeats.get(base + word) : ~takenSeats.get(base + word)) & (-1L << column);
+        while (bits == 0) {
+            if (++word == wordsPerRow) {
+                return columns;
+            }
+            bits = taken ? takenSeats.get(base + word) : ~takenSeats.get(base + word);
+        }
+        //The bits past the last seat of the row read as open : they are cut off here
+        return Math.min(columns, word * WORD_BITS + Long.numberOfTrailingZeros(bits));
+    }
+
+    private boolean isRowFull(int row) {
+        int base = row * wordsPerRow;
+        for (int word = 0; word < wordsPerRow - 1; word++) {
+            if (takenSeats.get(base + word) != -1L) {
+                return false;
+            }
+        }
+        return takenSeats.get(base + wordsPerRow - 1) == lastWordMask;
+    }
+
+    private static void setBit(AtomicLongArray words, int word, long bit) {
+        long bits = words.get(word);
+        while ((bits & bit) != bit && !words.compareAndSet(word, bits, bits | bit)) {
+            bits = words.get(word);
+        }
+    }
+
+    private static void clearBit(AtomicLongArray words, int word, long bit) {
+        long bits = words.get(word);
+        while ((bits & bit) != 0 && !words.compareAndSet(word, bits, bits & ~bit)) {
+            bits = words.get(word);
+        }
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    private static long lowBits(int count) {
+        return count >= WORD_BITS ? -1L : (1L << count) - 1;
+    }
+
+}
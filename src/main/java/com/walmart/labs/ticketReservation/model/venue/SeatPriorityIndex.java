@@ -0,0 +1,156 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import java.util.Arrays;
+
+/**
+ * Order of the seats of a Venue given by a SeatScoringStrategy, and the OPEN seats in that order.
+ * The seats are scored and sorted once, when the index is built : the rank of a seat is its position in that
+ * order. The OPEN seats are kept as bits by rank, 64 ranks to a word, in a FreeSeatIndex whose rows are these
+ * words, so finding the best OPEN seat skips the full words 64 at a time like for the rows of the venue.
+ * Unlike a heap of free seats, a seat taken or opened anywhere is a single bit flip done with a CAS.
+ *
+ * Blocks of adjacent seats are still looked for row by row : the rows are visited in the order of their best seat
+ * and the run of a row with the lowest sum of ranks is the best one of that row.
+ */
+class SeatPriorityIndex {
+
+    private static final int RANKS_PER_WORD = 64;
+
+    private final int columns;
+
+    //Rank of each seat, by row * columns + column
+    private final int[] rankOfSeat;
+
+    //Seat (row * columns + column) of each rank
+    private final int[] seatOfRank;
+
+    //Rows sorted by the rank of their best seat
+    private final int[] rowOrder;
+
+    //Sum of the ranks of the first c seats of each row, at row * (columns + 1) + c
+    private final long[] rankSums;
+
+    //OPEN seats by rank : rank r is column r % 64 of row r / 64
+    private final FreeSeatIndex openRanks;
+
+    /**
+     * Score all the seats and sort them, with all the seats open
+     * @param rows - Number of rows in the Venue
+     * @param columns - Number of seats each row
+     * @param strategy - the score of the seats
+     */
+    SeatPriorityIndex(int rows, int columns, SeatScoringStrategy strategy) {
+        int seats = rows * columns;
+        this.columns = columns;
+
+        //Score in the high half, seat in the low half : sorting the keys sorts the seats by score then front-left
+        long[] keys = new long[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            keys[seat] = ((long) strategy.score(seat / columns, seat % columns, rows, columns) << 32) | seat;
+        }
+        Arrays.sort(keys);
+
+        this.seatOfRank = new int[seats];
+        this.rankOfSeat = new int[seats];
+        for (int rank = 0; rank < seats; rank++) {
+            seatOfRank[rank] = (int) keys[rank];
+            rankOfSeat[seatOfRank[rank]] = rank;
+        }
+
+        //Every row first shows up at the rank of its best seat
+        this.rowOrder = new int[rows];
+        boolean[] ordered = new boolean[rows];
+        int next = 0;
+        for (int rank = 0; rank < seats && next < rows; rank++) {
+            int row = seatOfRank[rank] / columns;
+            if (!ordered[row]) {
+                ordered[row] = true;
+                rowOrder[next++] = row;
+            }
+        }
+
+        this.rankSums = new long[rows * (columns + 1)];
+        for (int row = 0; row < rows; row++) {
+            int base = row * (columns + 1);
+            for (int column = 0; column < columns; column++) {
+                rankSums[base + column + 1] = rankSums[base + column] + rankOfSeat[row * columns + column];
+            }
+        }
+
+        int words = (seats + RANKS_PER_WORD - 1) / RANKS_PER_WORD;
+        this.openRanks = new FreeSeatIndex(words, RANKS_PER_WORD);
+        if (seats % RANKS_PER_WORD != 0) {
+            //The ranks past the last seat are never open
+            openRanks.markTaken(words - 1, seats % RANKS_PER_WORD, RANKS_PER_WORD - seats % RANKS_PER_WORD);
+        }
+    }
+
+    void markOpen(int row, int column) {
+        int rank = rankOfSeat[row * columns + column];
+        openRanks.markOpen(rank / RANKS_PER_WORD, rank % RANKS_PER_WORD);
+    }
+
+    void markTaken(int row, int column) {
+        int rank = rankOfSeat[row * columns + column];
+        openRanks.markTaken(rank / RANKS_PER_WORD, rank % RANKS_PER_WORD);
+    }
+
+    /**
+     * Find the best OPEN seat at or after the given rank. Lock free hint.
+     * @param fromRank - the first rank to look at
+     * @return the rank, -1 if there is no OPEN seat from there
+     */
+    int nextOpenRank(int fromRank) {
+        if (fromRank >= seatOfRank.length) {
+            return -1;
+        }
+        int word = fromRank / RANKS_PER_WORD;
+        int column = fromRank % RANKS_PER_WORD;
+        while (word >= 0) {
+            column = openRanks.nextOpenColumn(word, column);
+            if (column >= 0) {
+                return word * RANKS_PER_WORD + column;
+            }
+            word = openRanks.nextOpenRow(word + 1);
+            column = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the seat of the rank, as row * columns + column
+     */
+    int seatOf(int rank) {
+        return seatOfRank[rank];
+    }
+
+    /**
+     * @param position - 0 for the row with the best seat
+     * @return the row at that position
+     */
+    int rowAt(int position) {
+        return rowOrder[position];
+    }
+
+    /**
+     * Find the run of numSeats adjacent OPEN seats of the row with the lowest sum of ranks
+     * @param freeSeatIndex - the OPEN seats of the venue
+     * @return the column of the first seat of the run, -1 if the row can't fit it
+     */
+    int findBestRun(FreeSeatIndex freeSeatIndex, int row, int numSeats) {
+        int base = row * (columns + 1);
+        int best = -1;
+        long bestSum = Long.MAX_VALUE;
+        int column = freeSeatIndex.findRun(row, numSeats, 0);
+        while (column >= 0) {
+            long sum = rankSums[base + column + numSeats] - rankSums[base + column];
+            if (sum < bestSum) {
+                best = column;
+                bestSum = sum;
+            }
+            column = freeSeatIndex.findRun(row, numSeats, column + 1);
+        }
+        return best;
+    }
+
+}
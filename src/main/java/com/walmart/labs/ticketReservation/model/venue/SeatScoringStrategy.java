@@ -0,0 +1,36 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+/**
+ * Ranks the seats of a Venue : the lower the score, the better the seat. Seats with the same score are ranked
+ * front row first and then left most first.
+ * A Venue scores each seat only once, when it is created, and keeps the seats in that order afterwards,
+ * so a strategy can be as costly as it needs to be.
+ */
+public interface SeatScoringStrategy {
+
+    /**
+     * Front row first, and the left most seat first in a row. The order of the free seat index, so a Venue
+     * with this strategy needs no priority index at all
+     */
+    SeatScoringStrategy FRONT_LEFT = (row, column, rows, columns) -> row * columns + column;
+
+    /**
+     * Closest seat to the middle of the stage first, the stage being in front of row 0
+     */
+    SeatScoringStrategy CENTER_STAGE = (row, column, rows, columns) -> {
+        //Distances doubled, so the middle of an even row is still a whole number
+        long rowDistance = 2L * (row + 1);
+        long columnDistance = 2L * column - (columns - 1);
+        return (int) Math.min(Integer.MAX_VALUE, rowDistance * rowDistance + columnDistance * columnDistance);
+    };
+
+    /**
+     * Score of a seat
+     * @param row - row number of the seat
+     * @param column - column number of the seat
+     * @param rows - Number of rows in the Venue
+     * @param columns - Number of seats each row
+     * @return the score of the seat, the lower the better
+     */
+    int score(int row, int column, int rows, int columns);
+}
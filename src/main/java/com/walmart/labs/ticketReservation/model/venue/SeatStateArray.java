@@ -0,0 +1,102 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Packed states of all the seats of a Venue : 2 bits for each seat (the SeatState ordinal), 32 seats in a word.
+ * A state change is a compare-and-set on the word of the seat, so it is safe without any lock.
+ * SeatState.OPEN is ordinal 0, so a new array has all the seats open.
+ */
+class SeatStateArray {
+
+    private static final SeatState[] SEAT_STATES = SeatState.values();
+
+    private static final int BITS_PER_SEAT = 2;
+
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+
+    private static final long STATE_MASK = (1L << BITS_PER_SEAT) - 1;
+
+    //Lowest bit of every seat of a word : times an ordinal, that state for every seat
+    private static final long EVERY_SEAT = 0x5555555555555555L;
+
+    private final AtomicLongArray words;
+
+    SeatStateArray(int seatCount) {
+        this.words = new AtomicLongArray((seatCount + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    SeatState get(int seatIndex) {
+        return SEAT_STATES[(int) ((words.get(seatIndex / SEATS_PER_WORD) >>> shift(seatIndex)) & STATE_MASK)];
+    }
+
+    /**
+     * Change the state of the seat if it is still in the expected state
+     * @return false if the seat was not in the expected state
+     */
+    boolean compareAndSet(int seatIndex, SeatState expected, SeatState update) {
+        int word = seatIndex / SEATS_PER_WORD;
+        int shift = shift(seatIndex);
+        long expectedBits = (long) expected.ordinal() << shift;
+        long updateBits = (long) update.ordinal() << shift;
+        long mask = STATE_MASK << shift;
+
+        long bits = words.get(word);
+        while ((bits & mask) == expectedBits) {
+            if (words.compareAndSet(word, bits, (bits & ~mask) | updateBits)) {
+                return true;
+            }
+            //Another seat of the same word changed : try again if this one did not
+            bits = words.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Change the state of consecutive seats if they are all still in the expected state, with one
+     * compare-and-set for each word they span instead of one for each seat
+     * @param seatIndex - index of the first seat
+     * @param numSeats - number of seats
+     * @return false if a seat was not in the expected state, the seats are then left as they were
+     */
+    boolean compareAndSetRun(int seatIndex, int numSeats, SeatState expected, SeatState update) {
+        int end = seatIndex + numSeats;
+        for (int from = seatIndex; from < end; ) {
+            int to = Math.min(end, (from / SEATS_PER_WORD + 1) * SEATS_PER_WORD);
+            if (!compareAndSetWord(from, to, expected, update)) {
+                //Undo the words already changed, their seats are ours
+                if (from > seatIndex) {
+                    compareAndSetRun(seatIndex, from - seatIndex, update, expected);
+                }
+                return false;
+            }
+            from = to;
+        }
+        return true;
+    }
+
+    //Seats from (inclusive) to (exclusive) of the same word
+    private boolean compareAndSetWord(int from, int to, SeatState expected, SeatState update) {
+        int word = from / SEATS_PER_WORD;
+        int seats = to - from;
+        long mask = ((seats == SEATS_PER_WORD) ? -1L : (1L << (seats * BITS_PER_SEAT)) - 1) << shift(from);
+        long expectedBits = EVERY_SEAT * expected.ordinal() & mask;
+        long updateBits = EVERY_SEAT * update.ordinal() & mask;
+
+        long bits = words.get(word);
+        while ((bits & mask) == expectedBits) {
+            if (words.compareAndSet(word, bits, (bits & ~mask) | updateBits)) {
+                return true;
+            }
+            bits = words.get(word);
+        }
+        return false;
+    }
+
+    private static int shift(int seatIndex) {
+        return (seatIndex % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+
+}
@@ -0,0 +1,470 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Section of a Venue, ie floor, lower bowl or balcony : a block of rows which all have the same number of seats.
+ * Every section has its own packed seat states, free seat index, open/held/reserved counters and row locks,
+ * so holding seats in one section never touches the data of another one.
+ *
+ * The rows of the sections are numbered one after the other across the venue : a Seat keeps its row number
+ * in the venue, the section translates it to its own rows.
+ */
+public class Section {
+
+    private static final int MAX_ROW_LOCKS = 256;
+
+    private static final int MAX_CLAIM_PASSES = 16;
+
+    private final String name;
+
+    private final int rows;
+
+    private final int columns;
+
+    private final LongAdder openSeatCount = new LongAdder();
+
+    private final LongAdder heldSeatCount = new LongAdder();
+
+    private final LongAdder reservedSeatCount = new LongAdder();
+
+    //Number of times a seat moved in or out of SeatState.OPEN, see AvailabilityPublisher
+    private final LongAdder availabilityChanges = new LongAdder();
+
+    //Set when the section is added to its venue
+    private Venue venue;
+
+    //Row number in the venue of the first row of the section
+    private int firstRow;
+
+    //Seat index in the venue of the first seat of the section
+    private int firstSeat;
+
+    //Packed seat states : the SeatState of each seat at row * columns + column, rows of the section
+    private SeatStateArray seatStates;
+
+    private FreeSeatIndex freeSeatIndex;
+
+    //OPEN seats in the order of the seatScoringStrategy, null for SeatScoringStrategy.FRONT_LEFT
+    private SeatPriorityIndex priorityIndex;
+
+    //Row locks with ConcurrencyMode.ROW_LOCKS, null with ConcurrencyMode.LOCK_FREE
+    //One lock for each row up to MAX_ROW_LOCKS, past that rows share the locks
+    private ReentrantLock[] rowLocks;
+
+    /**
+     * Define a section, its seats are created when it is given to a Venue
+     * @param name - name of the section, ie "112"
+     * @param row - Number of rows in the section
+     * @param column - Number of seats each row
+     */
+    public Section(String name, int row, int column) {
+        this.name = name;
+        this.rows = (row > 0) ? row : 1;
+        this.columns = (column > 0) ? column : 1;
+    }
+
+    /**
+     * Create the seats of the section, all of them OPEN
+     */
+    void attach(Venue venue, int firstRow, int firstSeat, ConcurrencyMode concurrencyMode,
+                SeatScoringStrategy seatScoringStrategy) {
+        //Only the state storage is allocated : the seats, their ids and the free seat index are all zero for now
+        if (concurrencyMode == ConcurrencyMode.ROW_LOCKS) {
+            rowLocks = new ReentrantLock[Math.min(rows, MAX_ROW_LOCKS)];
+            for (int i = 0; i < rowLocks.length; i++) {
+                rowLocks[i] = new ReentrantLock();
+            }
+        }
+
+        this.venue = venue;
+        this.firstRow = firstRow;
+        this.firstSeat = firstSeat;
+        this.openSeatCount.add(getMaxOccupancy());
+        this.seatStates = new SeatStateArray(getMaxOccupancy());
+        this.freeSeatIndex = new FreeSeatIndex(rows, columns);
+        if (seatScoringStrategy != SeatScoringStrategy.FRONT_LEFT) {
+            this.priorityIndex = new SeatPriorityIndex(rows, columns, seatScoringStrategy);
+        }
+    }
+
+    boolean isAttached() {
+        return venue != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getNumberOfRows() {
+        return rows;
+    }
+
+    public int getNumberOfSeatsEachRow() {
+        return columns;
+    }
+
+    /**
+     * @return the row number in the venue of the first row of the section
+     */
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    int getFirstSeat() {
+        return firstSeat;
+    }
+
+    public int getMaxOccupancy() {
+        return rows * columns;
+    }
+
+    public int getOpenSeatCount() {
+        return openSeatCount.intValue();
+    }
+
+    public int getHeldSeatCount() {
+        return heldSeatCount.intValue();
+    }
+
+    public int getReservedSeatCount() {
+        return reservedSeatCount.intValue();
+    }
+
+    long getAvailabilityChanges() {
+        return availabilityChanges.sum();
+    }
+
+    /**
+     * Copy the open seats of a row of the section, see FreeSeatIndex.copyOpenSeats()
+     * @param row - row number in the venue
+     * @param words - receives (getNumberOfSeatsEachRow() + 63) / 64 words
+     */
+    void copyOpenSeats(int row, long[] words) {
+        freeSeatIndex.copyOpenSeats(row - firstRow, words);
+    }
+
+    /**
+     * Current state of a seat of this section
+     * @param row - row number in the venue
+     */
+    SeatState getSeatState(int row, int column) {
+        return seatStates.get((row - firstRow) * columns + column);
+    }
+
+    /**
+     * Find the best OPEN seat of the section and move it to SeatState.PROCESSING
+     * @return the claimed seat, null if there is no OPEN seat left
+     */
+    Seat claimBestOpenSeat() {
+        //A pass can miss a seat which was being given back by another thread, look again while the count says so
+        for (int pass = 0; pass < MAX_CLAIM_PASSES && getOpenSeatCount() > 0; pass++) {
+            if (priorityIndex != null) {
+                Seat seat = claimBestRankedSeat();
+                if (seat != null) {
+                    return seat;
+                }
+                Thread.yield();
+                continue;
+            }
+            int row = freeSeatIndex.nextOpenRow(0);
+            while (row >= 0) {
+                lockRow(row);
+                try {
+                    int column = freeSeatIndex.nextOpenColumn(row, 0);
+                    while (column >= 0) {
+                        if (transition(row, column, SeatState.OPEN, SeatState.PROCESSING)) {
+                            return seat(row, column);
+                        }
+                        //Another thread claimed this seat first : try the next one
+                        column = freeSeatIndex.nextOpenColumn(row, column + 1);
+                    }
+                } finally {
+                    unlockRow(row);
+                }
+                row = freeSeatIndex.nextOpenRow(row + 1);
+            }
+            Thread.yield();
+        }
+        return null;
+    }
+
+    //One pass over the OPEN seats in the order of the priority index
+    private Seat claimBestRankedSeat() {
+        int rank = priorityIndex.nextOpenRank(0);
+        while (rank >= 0) {
+            int row = priorityIndex.seatOf(rank) / columns;
+            int column = priorityIndex.seatOf(rank) % columns;
+            lockRow(row);
+            try {
+                if (transition(row, column, SeatState.OPEN, SeatState.PROCESSING)) {
+                    return seat(row, column);
+                }
+            } finally {
+                unlockRow(row);
+            }
+            //Another thread claimed this seat first : try the next one
+            rank = priorityIndex.nextOpenRank(rank + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Find the best run of numSeats adjacent OPEN seats in a single row of the section and move them all
+     * to SeatState.HOLD in one state transition, see Venue.holdBestBlock()
+     * @return the held seats from left to right, null if no single row has room for all of them
+     */
+    List<Seat> holdBestBlock(int numSeats) {
+        if (numSeats <= 0 || numSeats > columns) {
+            return null;
+        }
+
+        if (priorityIndex != null) {
+            return holdBestRankedBlock(numSeats);
+        }
+
+        int row = freeSeatIndex.nextOpenRow(0);
+        while (row >= 0) {
+            int longestRun = freeSeatIndex.longestRunHint(row);
+            if (longestRun == FreeSeatIndex.STALE_RUN || longestRun >= numSeats) {
+                lockRow(row);
+                try {
+                    List<Seat> block = holdBlockInRow(row, numSeats);
+                    if (block != null) {
+                        return block;
+                    }
+                } finally {
+                    unlockRow(row);
+                }
+            }
+            row = freeSeatIndex.nextOpenRow(row + 1);
+        }
+        return null;
+    }
+
+    private List<Seat> holdBestRankedBlock(int numSeats) {
+        for (int position = 0; position < rows; position++) {
+            int row = priorityIndex.rowAt(position);
+            int longestRun = freeSeatIndex.longestRunHint(row);
+            if (freeSeatIndex.nextOpenRow(row) == row
+                    && (longestRun == FreeSeatIndex.STALE_RUN || longestRun >= numSeats)) {
+                lockRow(row);
+                try {
+                    List<Seat> block = holdBlockInRow(row, numSeats);
+                    if (block != null) {
+                        return block;
+                    }
+                } finally {
+                    unlockRow(row);
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Seat> holdBlockInRow(int row, int numSeats) {
+        //The cached longest run is only exact under the row lock
+        if (rowLocks != null && freeSeatIndex.longestRun(row) < numSeats) {
+            return null;
+        }
+
+        int column = (priorityIndex != null) ? priorityIndex.findBestRun(freeSeatIndex, row, numSeats)
+                : freeSeatIndex.findRun(row, numSeats, 0);
+        while (column >= 0) {
+            if (claimRun(row, column, numSeats)) {
+                openSeatCount.add(-numSeats);
+                heldSeatCount.add(numSeats);
+                freeSeatIndex.markTaken(row, column, numSeats);
+                List<Seat> block = new ArrayList<>(numSeats);
+                for (int c = column; c < column + numSeats; c++) {
+                    if (priorityIndex != null) {
+                        priorityIndex.markTaken(row, c);
+                    }
+                    if (seatStates.get(row * columns + c) == SeatState.OPEN) {
+                        syncFreeSeatIndex(row, c); //Opened again by someone else in the meantime
+                    }
+                    block.add(seat(row, c));
+                }
+                //Counted once the index has the seats, so the publisher never counts a change it can't see yet
+                availabilityChanges.add(numSeats);
+                return block;
+            }
+            if (priorityIndex != null) {
+                //Another thread claimed a seat of the best run first : leave this row to the next rows
+                return null;
+            }
+            //Another thread claimed a seat of this run first : look further in the row
+            column = freeSeatIndex.findRun(row, numSeats, column + 1);
+        }
+        return null;
+    }
+
+    //Move all the seats of the run from OPEN to HOLD, or none of them
+    private boolean claimRun(int row, int column, int numSeats) {
+        int base = row * columns + column;
+        for (int i = 0; i < numSeats; i++) {
+            if (!seatStates.compareAndSet(base + i, SeatState.OPEN, SeatState.HOLD)) {
+                for (int j = i - 1; j >= 0; j--) {
+                    seatStates.compareAndSet(base + j, SeatState.HOLD, SeatState.OPEN);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Change the state of a seat of the section, whatever its current state is. Caller holds the row lock
+     * @param row - row number in the venue
+     */
+    void changeState(int row, int column, SeatState seatState) {
+        int sectionRow = row - firstRow;
+        SeatState current = seatStates.get(sectionRow * columns + column);
+        while (current != seatState) {
+            if (transition(sectionRow, column, current, seatState)) {
+                return;
+            }
+            current = seatStates.get(sectionRow * columns + column);
+        }
+        //Case where the Race condition happened : already in that state, do nothing
+    }
+
+    /**
+     * Move an OPEN seat to another state, ie from a snapshot. Caller holds all the row locks
+     * @param seatIndex - index of the seat in the section, row * columns + column
+     */
+    void restoreSeatState(int seatIndex, SeatState seatState) {
+        transition(seatIndex / columns, seatIndex % columns, SeatState.OPEN, seatState);
+    }
+
+    /**
+     * Move a run of held seats of a row to SeatState.RESERVED, all of them or none, and the counters once.
+     * No seat goes in or out of SeatState.OPEN, so the free seat index and the row locks are not needed
+     * @param row - row number in the venue
+     * @return false if a seat of the run was not held
+     */
+    boolean reserveHeldRun(int row, int column, int numSeats) {
+        if (!seatStates.compareAndSetRun((row - firstRow) * columns + column, numSeats, SeatState.HOLD,
+                SeatState.RESERVED)) {
+            return false;
+        }
+        heldSeatCount.add(-numSeats);
+        reservedSeatCount.add(numSeats);
+        return true;
+    }
+
+    /**
+     * Undo reserveHeldRun(), when another run of the same SeatHold could not be reserved
+     * @param row - row number in the venue
+     */
+    void unreserveRun(int row, int column, int numSeats) {
+        if (seatStates.compareAndSetRun((row - firstRow) * columns + column, numSeats, SeatState.RESERVED,
+                SeatState.HOLD)) {
+            reservedSeatCount.add(-numSeats);
+            heldSeatCount.add(numSeats);
+        }
+    }
+
+    /**
+     * Compare-and-set the state of a seat and update the counters and the free seat index
+     * @return false if the seat was not in fromState anymore
+     */
+    private boolean transition(int row, int column, SeatState fromState, SeatState toState) {
+        if (!seatStates.compareAndSet(row * columns + column, fromState, toState)) {
+            return false;
+        }
+
+        //Decrease the fromState counter and increase the toState counter
+        count(fromState, -1);
+        count(toState, 1);
+
+        //Keep the free seat index in sync when a seat moves in or out of SeatState.OPEN
+        if (fromState == SeatState.OPEN || toState == SeatState.OPEN) {
+            syncFreeSeatIndex(row, column);
+            availabilityChanges.increment();
+        }
+        return true;
+    }
+
+    private void count(SeatState seatState, int delta) {
+        switch (seatState) {
+            case OPEN:
+                openSeatCount.add(delta);
+                break;
+            case HOLD:
+                heldSeatCount.add(delta);
+                break;
+            case RESERVED:
+                reservedSeatCount.add(delta);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Set the free seat bit from the current state of the seat. The state is read again after the write : when it
+     * changed in the meantime the bit is written again, so the last writer always leaves the bit right.
+     */
+    private void syncFreeSeatIndex(int row, int column) {
+        int index = row * columns + column;
+        SeatState state;
+        do {
+            state = seatStates.get(index);
+            if (state == SeatState.OPEN) {
+                freeSeatIndex.markOpen(row, column);
+                if (priorityIndex != null) {
+                    priorityIndex.markOpen(row, column);
+                }
+            } else {
+                freeSeatIndex.markTaken(row, column);
+                if (priorityIndex != null) {
+                    priorityIndex.markTaken(row, column);
+                }
+            }
+        } while (seatStates.get(index) != state);
+    }
+
+    //Seat of a row of the section, numbered as a row of the venue
+    private Seat seat(int row, int column) {
+        return new VenueSeat(venue, firstRow + row, column);
+    }
+
+    //Always in the same order, so it can't deadlock with another batch
+    void lockAllRows() {
+        if (rowLocks != null) {
+            for (ReentrantLock lock : rowLocks) {
+                venue.acquire(lock);
+            }
+        }
+    }
+
+    void unlockAllRows() {
+        if (rowLocks != null) {
+            for (int i = rowLocks.length - 1; i >= 0; i--) {
+                rowLocks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * @param row - row number in the section
+     */
+    void lockRow(int row) {
+        if (rowLocks != null && row >= 0) {
+            venue.acquire(rowLocks[row % rowLocks.length]);
+        }
+    }
+
+    void unlockRow(int row) {
+        if (rowLocks != null && row >= 0) {
+            rowLocks[row % rowLocks.length].unlock();
+        }
+    }
+
+}
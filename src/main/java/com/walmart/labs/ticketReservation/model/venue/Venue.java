@@ -1,79 +1,284 @@
 package com.walmart.labs.ticketReservation.model.venue;
 
 import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.metrics.LatencyHistogram;
 import com.walmart.labs.ticketReservation.model.seat.Seat;
 import com.walmart.labs.ticketReservation.model.seat.SeatState;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Venue defines the location where all the seat are located. We can have multiple venues with their own different seats
  * Venue has maxOccupancy - maximum capacity. We keep track of all the open, held and reserved seats in the venue.
+ *
+ * A venue is made of Sections, ie floor, lower bowl and balcony, each with its own number of rows and seats each row.
+ * A venue created with a number of rows and columns is a single section. The rows are numbered across the sections,
+ * in the order of the sections, and the seat index of a seat is its position when counting the seats row by row.
+ *
+ * Every section keeps the state of its seats in a packed array of 2 bits per seat and every state transition is a
+ * compare-and-set on it. Seat objects are only views on this array, created when asked for. With
+ * ConcurrencyMode.ROW_LOCKS the transitions of a row also run under the lock of that row, so holds and reservations
+ * which touch different rows run in parallel. With ConcurrencyMode.LOCK_FREE no lock is taken at all and a thread
+ * which loses a seat to another one retries on the next seat.
+ * The open, held and reserved counters are striped (LongAdder) and kept by each section for the same reason :
+ * a hold in one section never writes to the data of another section.
+ * The best seats are the front-left ones of the first section, unless the venue is given another
+ * SeatScoringStrategy : the seats of each section are then ranked once by it and the best seats are looked for
+ * in that order (see SeatPriorityIndex).
  */
 public class Venue {
 
-    private List<List<Seat>> seats;
+    /**
+     * Name of the section of a venue created with a number of rows and columns
+     */
+    public static final String MAIN_SECTION = "main";
 
     private int maxOccupancy;
 
-    private int openSeatCount;
+    private int rows;
+
+    //Seats of the longest row
+    private int columns;
+
+    private Section[] sections;
+
+    private Map<String, Section> sectionsByName;
+
+    //Section of each row
+    private Section[] sectionOfRow;
+
+    private ConcurrencyMode concurrencyMode;
 
-    private int heldSeatCount;
+    private SeatScoringStrategy seatScoringStrategy;
 
-    private int reservedSeatCount;
+    //Time spent waiting for a row lock held by another thread, uncontended acquisitions are not recorded
+    private final LatencyHistogram lockWaitHistogram = new LatencyHistogram();
+
+    private static final SeatState[] SEAT_STATES = SeatState.values();
 
     /**
-     * Initialize the Venue
+     * Initialize the Venue with ConcurrencyMode.ROW_LOCKS
      * @param row - Number of rows in the Venue
      * @param column - Number of seats each row
      */
     public Venue(int row, int column) {
-        if (row <= 0) row = 1;
-        if (column <= 0) column = 1;
+        this(row, column, ConcurrencyMode.ROW_LOCKS);
+    }
+
+    /**
+     * Initialize the Venue
+     * @param row - Number of rows in the Venue
+     * @param column - Number of seats each row
+     * @param concurrencyMode - how the seat states are protected from concurrent changes
+     */
+    public Venue(int row, int column, ConcurrencyMode concurrencyMode) {
+        this(row, column, concurrencyMode, SeatScoringStrategy.FRONT_LEFT);
+    }
+
+    /**
+     * Initialize the Venue
+     * @param row - Number of rows in the Venue
+     * @param column - Number of seats each row
+     * @param concurrencyMode - how the seat states are protected from concurrent changes
+     * @param seatScoringStrategy - which seats are the best ones, every seat is scored once here
+     */
+    public Venue(int row, int column, ConcurrencyMode concurrencyMode, SeatScoringStrategy seatScoringStrategy) {
+        init(Collections.singletonList(new Section(MAIN_SECTION, row, column)), concurrencyMode, seatScoringStrategy);
+    }
+
+    /**
+     * Initialize the Venue with its sections
+     * @param sections - the sections, the best one first. Each one can only be part of one venue
+     * @param concurrencyMode - how the seat states are protected from concurrent changes
+     * @param seatScoringStrategy - which seats of a section are the best ones, every seat is scored once here
+     * @throws TicketReservationException - if there is no section, two sections have the same name
+     * or a section is already part of a venue
+     */
+    public Venue(List<Section> sections, ConcurrencyMode concurrencyMode, SeatScoringStrategy seatScoringStrategy)
+            throws TicketReservationException {
+
+        if (sections == null || sections.isEmpty()) {
+            throw new TicketReservationException("You need to provide the sections of the venue.");
+        }
 
-        seats = new ArrayList<List<Seat>>();
-        for (int i = 0; i < row; i++) {
-            List<Seat> singleRow = new ArrayList<>();
-            for (int j = 0; j < column; j++) {
-                singleRow.add(new Seat(row, column));
+        Map<String, Section> names = new HashMap<>();
+        long seats = 0;
+        for (Section section : sections) {
+            if (section == null || section.getName() == null) {
+                throw new TicketReservationException("You need to provide the name of every section.");
             }
-            seats.add(singleRow);
+            if (section.isAttached() || names.put(section.getName(), section) != null) {
+                throw new TicketReservationException(
+                        String.format("Section %s is already part of a venue.", section.getName()));
+            }
+            seats += section.getMaxOccupancy();
+        }
+        if (seats > Integer.MAX_VALUE) {
+            throw new TicketReservationException("The venue has too many seats.");
         }
 
-        this.maxOccupancy = row * column;
-        this.openSeatCount = maxOccupancy;
-        this.reservedSeatCount = 0;
-        this.heldSeatCount = 0;
+        init(sections, concurrencyMode, seatScoringStrategy);
     }
 
+    private void init(List<Section> sections, ConcurrencyMode concurrencyMode,
+            SeatScoringStrategy seatScoringStrategy) {
+        if (concurrencyMode == null) concurrencyMode = ConcurrencyMode.ROW_LOCKS;
+        if (seatScoringStrategy == null) seatScoringStrategy = SeatScoringStrategy.FRONT_LEFT;
+
+        this.concurrencyMode = concurrencyMode;
+        this.seatScoringStrategy = seatScoringStrategy;
+        this.sections = sections.toArray(new Section[sections.size()]);
+        this.sectionsByName = new HashMap<>();
+        for (Section section : this.sections) {
+            rows += section.getNumberOfRows();
+            columns = Math.max(columns, section.getNumberOfSeatsEachRow());
+        }
 
+        this.sectionOfRow = new Section[rows];
+        int firstRow = 0;
+        int firstSeat = 0;
+        for (Section section : this.sections) {
+            section.attach(this, firstRow, firstSeat, concurrencyMode, seatScoringStrategy);
+            sectionsByName.put(section.getName(), section);
+            Arrays.fill(sectionOfRow, firstRow, firstRow + section.getNumberOfRows(), section);
+            firstRow += section.getNumberOfRows();
+            firstSeat += section.getMaxOccupancy();
+        }
+        this.maxOccupancy = firstSeat;
+    }
+
+
+    /**
+     * Read only view of all the seats, row by row. The Seat objects are created as they are read.
+     * @return the rows of seats
+     */
     public List<List<Seat>> getSeats() {
-        return seats;
+        return new AbstractList<List<Seat>>() {
+            @Override
+            public List<Seat> get(int row) {
+                return getRow(row);
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        };
+    }
+
+    private List<Seat> getRow(final int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException(String.format("Row %d is not part of this venue.", row));
+        }
+        final int rowColumns = sectionOfRow[row].getNumberOfSeatsEachRow();
+        return new AbstractList<Seat>() {
+            @Override
+            public Seat get(int column) {
+                if (column < 0 || column >= rowColumns) {
+                    throw new IndexOutOfBoundsException(String.format("Seat %d is not part of this row.", column));
+                }
+                return new VenueSeat(Venue.this, row, column);
+            }
+
+            @Override
+            public int size() {
+                return rowColumns;
+            }
+        };
     }
 
     public int getNumberOfRows() {
-        return seats.size();
+        return rows;
     }
 
+    /**
+     * @return the number of seats of the longest row, the number of seats of every row of a single section venue
+     */
     public int getNumberOfSeatsEachRow() {
-        return seats.get(0).size();
+        return columns;
     }
 
     public int getMaxOccupancy() {
         return maxOccupancy;
     }
 
+    //One read for each section, whatever the number of seats
     public int getOpenSeatCount() {
-        return openSeatCount;
+        int count = 0;
+        for (Section section : sections) {
+            count += section.getOpenSeatCount();
+        }
+        return count;
     }
 
     public int getHeldSeatCount() {
-        return heldSeatCount;
+        int count = 0;
+        for (Section section : sections) {
+            count += section.getHeldSeatCount();
+        }
+        return count;
     }
 
     public int getReservedSeatCount() {
-        return reservedSeatCount;
+        int count = 0;
+        for (Section section : sections) {
+            count += section.getReservedSeatCount();
+        }
+        return count;
+    }
+
+    //Moves of seats in or out of SeatState.OPEN since the venue was created
+    long getAvailabilityChanges() {
+        long count = 0;
+        for (Section section : sections) {
+            count += section.getAvailabilityChanges();
+        }
+        return count;
+    }
+
+    public ConcurrencyMode getConcurrencyMode() {
+        return concurrencyMode;
+    }
+
+    public SeatScoringStrategy getSeatScoringStrategy() {
+        return seatScoringStrategy;
+    }
+
+    /**
+     * @return the sections, the best one first
+     */
+    public List<Section> getSections() {
+        return Collections.unmodifiableList(Arrays.asList(sections));
+    }
+
+    /**
+     * @param name - name of the section
+     * @return the section, null if the venue has no such section
+     */
+    public Section getSection(String name) {
+        return (name == null) ? null : sectionsByName.get(name);
+    }
+
+    /**
+     * @param row - row number
+     * @return the section of the row, null if the row is not part of this venue
+     */
+    public Section getSectionOfRow(int row) {
+        return (row >= 0 && row < rows) ? sectionOfRow[row] : null;
+    }
+
+    /**
+     * Wait time of the contended row lock acquisitions, in nanoseconds. Always empty with ConcurrencyMode.LOCK_FREE
+     */
+    public LatencyHistogram getLockWaitHistogram() {
+        return lockWaitHistogram;
     }
 
     /**
@@ -84,31 +289,210 @@ public class Venue {
      */
     public Seat getSeat(int row, int column) {
         Seat s = null;
-        if (row >= 0 && column >= 0 && row < seats.size() && column < seats.get(0).size()) {
-            s = seats.get(row).get(column);
+        if (getSeatIndex(row, column) >= 0) {
+            s = new VenueSeat(this, row, column);
         }
         return s;
     }
 
+    /**
+     * Get a specific seat by its seat index
+     * @param seatIndex - index of the seat, see getSeatIndex()
+     * @return Seat object for that location, null if there is no such seat
+     */
+    public Seat getSeatByIndex(int seatIndex) {
+        if (seatIndex < 0 || seatIndex >= maxOccupancy) {
+            return null;
+        }
+        Section section = sectionOfSeat(seatIndex);
+        int seat = seatIndex - section.getFirstSeat();
+        return new VenueSeat(this, section.getFirstRow() + seat / section.getNumberOfSeatsEachRow(),
+                seat % section.getNumberOfSeatsEachRow());
+    }
+
+    /**
+     * Position of a seat when counting all the seats of the venue row by row, from 0 to maxOccupancy - 1
+     * @param row - row number
+     * @param column - column number
+     * @return the seat index, -1 if the seat is not part of this venue
+     */
+    public int getSeatIndex(int row, int column) {
+        if (row < 0 || row >= rows || column < 0) {
+            return -1;
+        }
+        Section section = sectionOfRow[row];
+        if (column >= section.getNumberOfSeatsEachRow()) {
+            return -1;
+        }
+        return section.getFirstSeat() + (row - section.getFirstRow()) * section.getNumberOfSeatsEachRow() + column;
+    }
+
+    /**
+     * Current state of a seat of this venue
+     */
+    SeatState getSeatState(int row, int column) {
+        return sectionOfRow[row].getSeatState(row, column);
+    }
+
+    /**
+     * Find the best OPEN seat using the free seat index and move it to SeatState.PROCESSING
+     * The default inherent priority is left-front row > right-last row, else the order of the seatScoringStrategy,
+     * in the first section which has an OPEN seat
+     * @return the claimed seat, null if there is no OPEN seat left
+     */
+    public Seat claimBestOpenSeat() {
+        for (Section section : sections) {
+            Seat seat = section.claimBestOpenSeat();
+            if (seat != null) {
+                return seat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the best run of numSeats adjacent OPEN seats in a single row and move them all to SeatState.HOLD
+     * in one state transition. Front row has greater priority and then the left most run of that row.
+     * With a seatScoringStrategy the rows are looked at in the order of their best seat, and the run of a row
+     * with the best seats is taken. The sections are looked at in order.
+     * @param numSeats - number of adjacent seats to hold
+     * @return the held seats from left to right, null if no single row has room for all of them
+     */
+    public List<Seat> holdBestBlock(int numSeats) {
+        if (numSeats <= 0 || numSeats > columns) {
+            return null;
+        }
+
+        for (Section section : sections) {
+            List<Seat> block = section.holdBestBlock(numSeats);
+            if (block != null) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hold the best numSeats OPEN seats : together in one row if a row has room for all of them,
+     * else split across the best seats of a single section, else across the best seats of the venue
+     * @param numSeats - number of seats to hold
+     * @return the held seats, null if there are not enough OPEN seats or numSeats is not positive
+     */
+    public List<Seat> holdBestSeats(int numSeats) {
+        if (numSeats <= 0) {
+            return null;
+        }
+
+        List<Seat> block = holdBestBlock(numSeats);
+        if (block != null) {
+            return block;
+        }
+
+        if (sections.length > 1) {
+            for (Section section : sections) {
+                if (section.getOpenSeatCount() >= numSeats) {
+                    List<Seat> seats = holdBestSplitSeats(numSeats, section);
+                    if (seats != null) {
+                        return seats;
+                    }
+                }
+            }
+        }
+        return holdBestSplitSeats(numSeats, null);
+    }
+
+    /**
+     * Hold the best numSeats OPEN seats of one section, together in one row if possible.
+     * Only the seats, counters and locks of that section are used.
+     * @param sectionName - name of the section
+     * @param numSeats - number of seats to hold
+     * @return the held seats, null if the section does not exist or has not enough OPEN seats
+     */
+    public List<Seat> holdBestSeats(String sectionName, int numSeats) {
+        Section section = getSection(sectionName);
+        if (section == null || numSeats <= 0 || numSeats > section.getOpenSeatCount()) {
+            return null;
+        }
+        List<Seat> block = section.holdBestBlock(numSeats);
+        return (block != null) ? block : holdBestSplitSeats(numSeats, section);
+    }
+
+    /**
+     * Hold the best seats for a whole batch of parties, in the order of the batch.
+     * With ConcurrencyMode.ROW_LOCKS the row locks are taken once for the whole batch.
+     * @param numSeats - number of seats to hold for each party
+     * @return the held seats of each party, null for a party which could not be seated
+     */
+    public List<List<Seat>> holdBestSeats(int[] numSeats) {
+        List<List<Seat>> batch = new ArrayList<>(numSeats.length);
+        lockAllRows();
+        try {
+            for (int n : numSeats) {
+                batch.add((n > 0 && n <= getOpenSeatCount()) ? holdBestSeats(n) : null);
+            }
+        } finally {
+            unlockAllRows();
+        }
+        return batch;
+    }
+
+    //Hold the best seats one by one, they need not be adjacent. In the whole venue when section is null
+    private List<Seat> holdBestSplitSeats(int numSeats, Section section) {
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < numSeats; i++) {
+            Seat seat = (section != null) ? section.claimBestOpenSeat() : claimBestOpenSeat();
+            if (seat == null) { //No seats can be found - remove others from Hold
+                try {
+                    if (!seats.isEmpty()) {
+                        processSeats(seats, SeatState.OPEN);
+                    }
+                } catch (Exception e) { //Exception Opening the Held seats
+                }
+                return null;
+            }
+            seats.add(seat);
+        }
+
+        //Hold all the seats
+        try {
+            if (!seats.isEmpty()) {
+                processSeats(seats, SeatState.HOLD);
+            }
+        } catch (Exception e) {
+            try {
+                processSeats(seats, SeatState.OPEN);
+            } catch (Exception innerException) { //Exception Opening the Held seats
+            }
+        }
+        return seats;
+    }
+
     /**
      * Process the specific seat - ie change the seatState to given state
      * @param seat - the seat object which is to be processed
      * @param seatState - the final seatState the seat should have
      * @throws Exception - Exceptions
      */
-    public synchronized void processSeat(Seat seat, SeatState seatState) throws Exception {
-        List<Seat> seatList = new ArrayList<>();
-        seatList.add(seat);
-        processSeats(seatList, seatState);
+    public void processSeat(Seat seat, SeatState seatState) throws Exception {
+        if (seat == null) {
+            throw new IllegalArgumentException("Seat to process is null.");
+        }
+
+        if (seatState == null) {
+            throw new IllegalArgumentException("SeatState to change should be valid one.");
+        }
+
+        changeState(seat, seatState);
     }
 
     /**
      * Process list of seats
+     * Consecutive seats of the same row are processed under a single acquisition of the row lock
      * @param seats - The list of seats to be processed
      * @param seatState - The seatState to which all needs to be moved
      * @throws Exception
      */
-    public synchronized void processSeats(List<Seat> seats, SeatState seatState) throws Exception {
+    public void processSeats(List<Seat> seats, SeatState seatState) throws Exception {
 
         if (seats == null || seats.size() == 0) {
             throw new IllegalArgumentException("Seats to process are null or empty.");
@@ -118,48 +502,166 @@ public class Venue {
             throw new IllegalArgumentException("SeatState to change should be valid one.");
         }
 
-        for (Seat seat : seats) {
-            SeatState currentSeatState = seat.getSeatState();
-
-            if (currentSeatState.equals(seatState)) {
-                //Case where the Race condition happened
-                continue; //Do nothing
-            }
-
-            //Update the seatState and the counter for the corresponding state
-            switch (seatState) {
-                case OPEN:
-                    seat.setStateToOpen();
-                    openSeatCount++;
-                    break;
-                case HOLD:
-                    seat.setStateToHold();
-                    heldSeatCount++;
-                    break;
-                case RESERVED:
-                    seat.setStateToReserved();
-                    reservedSeatCount++;
-                    break;
-                case PROCESSING:
-                    seat.setStateToProcessing();
-                    break;
-                default:
-            }
-
-            //Decrease the currentSeatState counter as we changed the state
-            switch (currentSeatState) {
-                case OPEN:
-                    openSeatCount--;
-                    break;
-                case HOLD:
-                    heldSeatCount--;
-                    break;
-                case RESERVED:
-                    reservedSeatCount--;
-                    break;
-                default:
+        int lockedRow = -1;
+        try {
+            for (Seat seat : seats) {
+                checkSeat(seat);
+                if (seat.getRow() != lockedRow) {
+                    unlockRow(lockedRow);
+                    lockedRow = -1;
+                    lockRow(seat.getRow());
+                    lockedRow = seat.getRow();
+                }
+                sectionOfRow[seat.getRow()].changeState(seat.getRow(), seat.getSeatNum(), seatState);
             }
+        } finally {
+            unlockRow(lockedRow);
+        }
+    }
 
+    /**
+     * Reserve the held seats of a SeatHold as one unit : all of them or none.
+     * Consecutive seats of a row are a run, flipped from SeatState.HOLD to SeatState.RESERVED with one
+     * compare-and-set for each word of their packed states, and counted once. No row lock is taken : the seats
+     * stay out of the free seat index, and the owner of the SeatHold is the only one changing them.
+     * @param seats - the seats of the SeatHold, as held
+     * @return false if a seat was not held, the seats are then left as they were
+     */
+    public boolean reserveHeldSeats(List<Seat> seats) {
+        if (seats == null || seats.isEmpty()) {
+            throw new IllegalArgumentException("Seats to reserve are null or empty.");
+        }
+
+        int runStart = 0;
+        for (int i = 1; i <= seats.size(); i++) {
+            Seat first = seats.get(runStart);
+            if (i < seats.size() && seats.get(i).getRow() == first.getRow()
+                    && seats.get(i).getSeatNum() == first.getSeatNum() + (i - runStart)) {
+                continue;
+            }
+            checkSeat(first);
+            checkSeat(seats.get(i - 1));
+            if (!sectionOfRow[first.getRow()].reserveHeldRun(first.getRow(), first.getSeatNum(), i - runStart)) {
+                unreserveRuns(seats, runStart);
+                return false;
+            }
+            runStart = i;
+        }
+        return true;
+    }
+
+    //Back to SeatState.HOLD, the runs of the first seats which were reserved
+    private void unreserveRuns(List<Seat> seats, int end) {
+        int runStart = 0;
+        for (int i = 1; i <= end; i++) {
+            Seat first = seats.get(runStart);
+            if (i < end && seats.get(i).getRow() == first.getRow()
+                    && seats.get(i).getSeatNum() == first.getSeatNum() + (i - runStart)) {
+                continue;
+            }
+            sectionOfRow[first.getRow()].unreserveRun(first.getRow(), first.getSeatNum(), i - runStart);
+            runStart = i;
+        }
+    }
+
+    /**
+     * Change the state of a single seat of this venue, whatever its current state is
+     */
+    void changeState(Seat seat, SeatState seatState) {
+        checkSeat(seat);
+        lockRow(seat.getRow());
+        try {
+            sectionOfRow[seat.getRow()].changeState(seat.getRow(), seat.getSeatNum(), seatState);
+        } finally {
+            unlockRow(seat.getRow());
+        }
+    }
+
+    private void checkSeat(Seat seat) {
+        if (!(seat instanceof VenueSeat) || ((VenueSeat) seat).getVenue() != this) {
+            throw new IllegalArgumentException(String.format("Seat %s is not part of this venue.", seat.getId()));
+        }
+    }
+
+    //Section of a seat index, the sections are few : a linear search is as fast as a binary one
+    private Section sectionOfSeat(int seatIndex) {
+        for (int i = sections.length - 1; i > 0; i--) {
+            if (seatIndex >= sections[i].getFirstSeat()) {
+                return sections[i];
+            }
+        }
+        return sections[0];
+    }
+
+    //Always in the same order, so it can't deadlock with another batch
+    private void lockAllRows() {
+        for (Section section : sections) {
+            section.lockAllRows();
+        }
+    }
+
+    private void unlockAllRows() {
+        for (int i = sections.length - 1; i >= 0; i--) {
+            sections[i].unlockAllRows();
+        }
+    }
+
+    //Lock of a row of the venue, in its section
+    private void lockRow(int row) {
+        if (row >= 0) {
+            Section section = sectionOfRow[row];
+            section.lockRow(row - section.getFirstRow());
+        }
+    }
+
+    private void unlockRow(int row) {
+        if (row >= 0) {
+            Section section = sectionOfRow[row];
+            section.unlockRow(row - section.getFirstRow());
+        }
+    }
+
+    //Only a lock held by another thread is timed, so the uncontended path costs no clock read
+    void acquire(ReentrantLock lock) {
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            lockWaitHistogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Set the states of all the seats at once, ie from a snapshot. Only for a venue with all its seats OPEN
+     * @param packedStates - 2 bits for each seat (by seat index, see getSeatIndex()) holding its SeatState ordinal,
+     *                     32 seats in a word from the low bits. PROCESSING seats are restored OPEN
+     * @throws TicketReservationException - if the venue has seats which are not OPEN or the states don't fit it
+     */
+    public void restoreSeatStates(long[] packedStates) throws TicketReservationException {
+        if (packedStates == null || packedStates.length != (maxOccupancy + 31) / 32) {
+            throw new TicketReservationException("The seat states don't fit this venue.");
+        }
+
+        lockAllRows();
+        try {
+            if (getOpenSeatCount() != maxOccupancy) {
+                throw new TicketReservationException(
+                        "Seat states can only be restored on a venue with all its seats open.");
+            }
+            for (int word = 0; word < packedStates.length; word++) {
+                //Only the seats which are not OPEN are visited
+                for (long bits = packedStates[word]; bits != 0; ) {
+                    int slot = Long.numberOfTrailingZeros(bits) / 2;
+                    int index = word * 32 + slot;
+                    SeatState seatState = SEAT_STATES[(int) (bits >>> (slot * 2)) & 3];
+                    bits &= ~(3L << (slot * 2));
+                    if (index < maxOccupancy && seatState != SeatState.PROCESSING) {
+                        Section section = sectionOfSeat(index);
+                        section.restoreSeatState(index - section.getFirstSeat(), seatState);
+                    }
+                }
+            }
+        } finally {
+            unlockAllRows();
         }
     }
 
@@ -0,0 +1,48 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+
+/**
+ * Seat of a Venue. It does not keep its own state : the state is read from and written to the
+ * packed seat state array of the Venue, so the counters and the free seat index stay in sync.
+ * It is a view created on demand, two views of the same seat are equal but not the same object.
+ */
+class VenueSeat extends Seat {
+
+    private final Venue venue;
+
+    VenueSeat(Venue venue, int row, int seatNum) {
+        super(row, seatNum);
+        this.venue = venue;
+    }
+
+    @Override
+    public SeatState getSeatState() {
+        return venue.getSeatState(getRow(), getSeatNum());
+    }
+
+    @Override
+    public void setStateToOpen() {
+        venue.changeState(this, SeatState.OPEN);
+    }
+
+    @Override
+    public void setStateToHold() {
+        venue.changeState(this, SeatState.HOLD);
+    }
+
+    @Override
+    public void setStateToReserved() {
+        venue.changeState(this, SeatState.RESERVED);
+    }
+
+    @Override
+    public void setStateToProcessing() {
+        venue.changeState(this, SeatState.PROCESSING);
+    }
+
+    Venue getVenue() {
+        return venue;
+    }
+}
@@ -0,0 +1,19 @@
+package com.walmart.labs.ticketReservation.service;
+
+/**
+ * Where a customer of the WaitingRoom stands
+ */
+public enum AdmissionStatus {
+    //In the queue, waiting for its turn
+    WAITING,
+    //May find and hold seats once
+    ADMITTED,
+    //No seat was available when the customer came or while it waited
+    SOLD_OUT,
+    //The queue was full when the customer came
+    QUEUE_FULL,
+    //The waiting room was closed
+    CLOSED,
+    //The customer stopped waiting before its turn, its place is skipped
+    ABANDONED
+}
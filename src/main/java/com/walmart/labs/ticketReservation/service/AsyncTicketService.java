@@ -0,0 +1,38 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking counterpart of the TicketService : the calls return at once and the result comes with the future
+ */
+public interface AsyncTicketService {
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved
+     *
+     * @return the number of tickets available in the venue
+     */
+    int numSeatsAvailable();
+
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a future of the SeatHold object identifying the specific seats and related
+     * information, completed with null if the seats could not be held
+     */
+    CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail);
+
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a future of the reservation confirmation code, completed with null if the seats could not be reserved
+     */
+    CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail);
+}
@@ -0,0 +1,191 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The implementation of the AsyncTicketService Interface
+ * All the requests of a venue go through one queue to a single writer thread (the event loop of the venue).
+ * Callers never block on the service : they get a future back, and thousands of requests can be pending
+ * without a thread for each caller. The event loop drains the queue and hands the consecutive holds to the
+ * BatchTicketService in one batch, so the venue locks are taken once for all of them.
+ */
+public class AsyncTicketServiceImpl implements AsyncTicketService, AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    //Most requests the event loop takes from the queue at once
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final BatchTicketService service;
+
+    private final BlockingQueue<Request> requests;
+
+    private final Thread eventLoop;
+
+    private volatile boolean running;
+
+    /**
+     * Start the event loop for the given service
+     * @param service - the service of a single venue
+     * @throws TicketReservationException - exception
+     */
+    public AsyncTicketServiceImpl(BatchTicketService service) throws TicketReservationException {
+        this(service, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Start the event loop for the given service
+     * @param service - the service of a single venue
+     * @param queueCapacity - most requests which can be pending, the next ones fail at once
+     * @throws TicketReservationException - exception
+     */
+    public AsyncTicketServiceImpl(BatchTicketService service, int queueCapacity) throws TicketReservationException {
+        if (service == null) {
+            throw new TicketReservationException("You need to provide the service.");
+        }
+
+        this.service = service;
+        this.requests = new LinkedBlockingQueue<>(queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY);
+        this.running = true;
+        this.eventLoop = new Thread(this::runEventLoop, "ticket-service-event-loop");
+        this.eventLoop.setDaemon(true);
+        this.eventLoop.start();
+    }
+
+    public int numSeatsAvailable() {
+        return service.numSeatsAvailable();
+    }
+
+    public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+        CompletableFuture<SeatHold> future = new CompletableFuture<>();
+        submit(new Request(new HoldRequest(numSeats, customerEmail), future, null, 0, null));
+        return future;
+    }
+
+    public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        submit(new Request(null, null, future, seatHoldId, customerEmail));
+        return future;
+    }
+
+    /**
+     * Stop the event loop. The requests still pending fail with a TicketReservationException.
+     */
+    public void close() {
+        running = false;
+        eventLoop.interrupt();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failPending();
+    }
+
+    private void submit(Request request) {
+        if (!running) {
+            request.fail(new TicketReservationException("Service is closed."));
+        } else if (!requests.offer(request)) {
+            request.fail(new TicketReservationException("Too many pending requests."));
+        } else if (!running) {
+            failPending(); //Closed while the request was added
+        }
+    }
+
+    private void runEventLoop() {
+        List<Request> drained = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                drained.add(requests.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            requests.drainTo(drained, MAX_BATCH_SIZE - 1);
+            process(drained);
+            drained.clear();
+        }
+    }
+
+    //Consecutive holds go as one batch, reservations one by one in between
+    private void process(List<Request> drained) {
+        int from = 0;
+        while (from < drained.size()) {
+            int to = from;
+            while (to < drained.size() && drained.get(to).holdRequest != null) {
+                to++;
+            }
+            if (to > from) {
+                processHolds(drained.subList(from, to));
+                from = to;
+            } else {
+                Request request = drained.get(from++);
+                try {
+                    request.reservation.complete(service.reserveSeats(request.seatHoldId, request.customerEmail));
+                } catch (RuntimeException e) {
+                    request.fail(e);
+                }
+            }
+        }
+    }
+
+    private void processHolds(List<Request> holds) {
+        try {
+            List<HoldRequest> holdRequests = new ArrayList<>(holds.size());
+            for (Request request : holds) {
+                holdRequests.add(request.holdRequest);
+            }
+            List<SeatHold> seatHolds = service.findAndHoldSeatsBatch(holdRequests);
+            for (int i = 0; i < holds.size(); i++) {
+                holds.get(i).seatHold.complete(seatHolds.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Request request : holds) {
+                request.fail(e);
+            }
+        }
+    }
+
+    private void failPending() {
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.fail(new TicketReservationException("Service is closed."));
+        }
+    }
+
+    /**
+     * A pending hold (holdRequest and seatHold are set) or reservation (reservation is set)
+     */
+    private static class Request {
+
+        private final HoldRequest holdRequest;
+        private final CompletableFuture<SeatHold> seatHold;
+        private final CompletableFuture<String> reservation;
+        private final int seatHoldId;
+        private final String customerEmail;
+
+        Request(HoldRequest holdRequest, CompletableFuture<SeatHold> seatHold,
+                CompletableFuture<String> reservation, int seatHoldId, String customerEmail) {
+            this.holdRequest = holdRequest;
+            this.seatHold = seatHold;
+            this.reservation = reservation;
+            this.seatHoldId = seatHoldId;
+            this.customerEmail = customerEmail;
+        }
+
+        void fail(Throwable cause) {
+            if (seatHold != null) {
+                seatHold.completeExceptionally(cause);
+            } else {
+                reservation.completeExceptionally(cause);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.util.List;
+
+/**
+ * TicketService which can also hold and reserve seats in bulk, for group sales and box office integrations
+ */
+public interface BatchTicketService extends TicketService {
+
+    /**
+     * Find and hold the best available seats for a batch of customers, in the order of the batch
+     *
+     * @param holdRequests the number of seats and the customer of each hold
+     * @return the SeatHold of each request, at the same position as the request,
+     * null for a request which could not be held
+     */
+    List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests);
+
+    /**
+     * Commit the seats of a batch of holds of the same customer
+     *
+     * @param seatHoldIds   the seat hold identifiers
+     * @param customerEmail the email address of the customer to which the
+     *                      seat holds are assigned
+     * @return the reservation confirmation code of each hold, at the same position as the hold,
+     * null for a hold which could not be reserved
+     */
+    List<String> reserveSeatsBatch(List<Integer> seatHoldIds, String customerEmail);
+}
@@ -0,0 +1,128 @@
+package com.walmart.labs.ticketReservation.service;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seats held and reserved by each customer, so a customer can't hold more than its share of the venue.
+ * The two counts of a customer are packed in one long (held seats in the high bits, reserved seats in the
+ * low bits) and changed with a compare-and-set on its map entry : a hold is checked against both limits and
+ * counted in one step, without a lock or a scan of the holds. A customer with nothing held or reserved
+ * has no entry. Emails are counted in lower case, so a customer can't get a second quota by changing its case.
+ */
+class CustomerQuotas {
+
+    private static final long RESERVED_MASK = 0xffffffffL;
+
+    private final int maxHeldSeats;
+
+    private final int maxSeats;
+
+    //Key -> customerEmail in lower case, value -> held seats << 32 | reserved seats
+    private final ConcurrentHashMap<String, Long> seatCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxHeldSeats - most seats a customer can hold at once
+     * @param maxSeats - most seats a customer can hold and reserve in all
+     */
+    CustomerQuotas(int maxHeldSeats, int maxSeats) {
+        this.maxHeldSeats = maxHeldSeats;
+        this.maxSeats = maxSeats;
+    }
+
+    int getHeldSeats(String customerEmail) {
+        return held(count(customerEmail));
+    }
+
+    int getReservedSeats(String customerEmail) {
+        return reserved(count(customerEmail));
+    }
+
+    /**
+     * Count numSeats more held seats for the customer, if it stays within its limits
+     * @return false if the customer can't hold that many more seats, nothing is counted then
+     */
+    boolean tryHold(String customerEmail, int numSeats) {
+        if (numSeats <= 0 || numSeats > maxHeldSeats || numSeats > maxSeats) {
+            return false;
+        }
+        String key = key(customerEmail);
+        while (true) {
+            Long packed = seatCounts.get(key);
+            long current = (packed == null) ? 0 : packed;
+            if (held(current) + numSeats > maxHeldSeats || held(current) + reserved(current) + numSeats > maxSeats) {
+                return false;
+            }
+            if (update(key, packed, current + ((long) numSeats << 32))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Held seats which expired, or could not be held after all
+     */
+    void releaseHeld(String customerEmail, int numSeats) {
+        add(customerEmail, -numSeats, 0);
+    }
+
+    /**
+     * Held seats which got reserved
+     */
+    void reserve(String customerEmail, int numSeats) {
+        add(customerEmail, -numSeats, numSeats);
+    }
+
+    /**
+     * Reserved seats which were cancelled, or could not be reserved after all
+     */
+    void releaseReserved(String customerEmail, int numSeats) {
+        add(customerEmail, 0, -numSeats);
+    }
+
+    /**
+     * Count seats which are already held or reserved, ie when the quotas are set on a running service.
+     * The limits are not checked
+     */
+    void add(String customerEmail, int heldSeats, int reservedSeats) {
+        String key = key(customerEmail);
+        while (true) {
+            Long packed = seatCounts.get(key);
+            long current = (packed == null) ? 0 : packed;
+            int held = Math.max(0, held(current) + heldSeats);
+            int reserved = Math.max(0, reserved(current) + reservedSeats);
+            if (update(key, packed, ((long) held << 32) | reserved)) {
+                return;
+            }
+        }
+    }
+
+    private long count(String customerEmail) {
+        Long packed = seatCounts.get(key(customerEmail));
+        return (packed == null) ? 0 : packed;
+    }
+
+    //Compare-and-set the entry of the customer, removed once it counts nothing
+    private boolean update(String key, Long expected, long updated) {
+        if (expected == null) {
+            return updated == 0 || seatCounts.putIfAbsent(key, updated) == null;
+        }
+        if (updated == 0) {
+            return seatCounts.remove(key, expected);
+        }
+        return seatCounts.replace(key, expected, updated);
+    }
+
+    private static String key(String customerEmail) {
+        return customerEmail.toLowerCase(Locale.ROOT);
+    }
+
+    private static int held(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int reserved(long packed) {
+        return (int) (packed & RESERVED_MASK);
+    }
+
+}
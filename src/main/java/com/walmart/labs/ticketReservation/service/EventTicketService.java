@@ -0,0 +1,47 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+/**
+ * TicketService for many events at once : every operation is routed by the event identifier
+ */
+public interface EventTicketService {
+
+    /**
+     * The TicketService of a single event
+     *
+     * @param eventId the event identifier
+     * @return the service of the event, null if there is no such event
+     */
+    TicketService forEvent(String eventId);
+
+    /**
+     * The number of seats in the venue of the event that are neither held nor reserved
+     *
+     * @param eventId the event identifier
+     * @return the number of tickets available for the event, 0 if there is no such event
+     */
+    int numSeatsAvailable(String eventId);
+
+    /**
+     * Find and hold the best available seats of the event for a customer
+     *
+     * @param eventId       the event identifier
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+     * information, null if there is no such event
+     */
+    SeatHold findAndHoldSeats(String eventId, int numSeats, String customerEmail);
+
+    /**
+     * Commit seats of the event held for a specific customer
+     *
+     * @param eventId       the event identifier
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a reservation confirmation code, null if there is no such event
+     */
+    String reserveSeats(String eventId, int seatHoldId, String customerEmail);
+}
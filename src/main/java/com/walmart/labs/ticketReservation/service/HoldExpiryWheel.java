@@ -0,0 +1,181 @@
+package com.walmart.labs.ticketReservation.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Hashed timer wheel for the SeatHold deadlines.
+ * The time is cut in ticks and every tick maps to one bucket of the wheel (tick % wheelSize). Scheduling a hold
+ * is one link into the bucket of its deadline. Advancing the wheel only drains the buckets of the ticks which
+ * passed since the last advance, so the cost is the number of expired holds and not the number of live holds.
+ * A deadline further than one turn of the wheel stays in its bucket until the turn it belongs to.
+ *
+ * The entries are the seatHoldId and the tick of a hold, kept in parallel arrays : a bucket is a list linked by
+ * the index of the next entry, and the entries of the drained holds are reused. Scheduling and draining allocate
+ * nothing once the arrays are as large as the holds of a seatHoldTimeOut, they double when they are full.
+ *
+ * Holds can be scheduled from any thread. Only one thread advances the wheel at a time, the others skip.
+ * The expired holds are handed over outside of the lock of the entries, so holds can be scheduled meanwhile.
+ */
+class HoldExpiryWheel {
+
+    private static final int INITIAL_ENTRIES = 256;
+
+    //End of a list of entries
+    private static final int NONE = -1;
+
+    private final long originNanos;
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    //First entry of each bucket
+    private final int[] buckets;
+
+    //The entries, and the lock of the buckets and the entries
+    private final ReentrantLock entryLock = new ReentrantLock();
+    private int[] seatHoldIds;
+    private long[] ticks;
+    private int[] nextEntries;
+    //First entry which is not in a bucket
+    private int freeEntry;
+
+    private final ReentrantLock advanceLock = new ReentrantLock();
+
+    //seatHoldIds of the bucket being drained, only used with the advanceLock
+    private int[] dueIds = new int[INITIAL_ENTRIES];
+
+    //Last tick whose bucket was drained
+    private volatile long currentTick;
+
+    /**
+     * Initialize the wheel
+     * @param originNanos - the time of tick 0
+     * @param tickNanos - the duration of one tick
+     * @param wheelSize - number of buckets, rounded up to a power of two
+     */
+    HoldExpiryWheel(long originNanos, long tickNanos, int wheelSize) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.originNanos = originNanos;
+        this.tickNanos = Math.max(1, tickNanos);
+        this.mask = size - 1;
+        this.buckets = new int[size];
+        Arrays.fill(buckets, NONE);
+        this.seatHoldIds = new int[INITIAL_ENTRIES];
+        this.ticks = new long[INITIAL_ENTRIES];
+        this.nextEntries = new int[INITIAL_ENTRIES];
+        freeEntries(0);
+        this.currentTick = 0;
+    }
+
+    /**
+     * Schedule the expiry of a hold
+     * @param seatHoldId - the hold to expire
+     * @param deadlineNanos - the time after which the hold expires
+     */
+    void schedule(int seatHoldId, long deadlineNanos) {
+        //Round up, so a bucket only has holds which are due once its tick has passed
+        long tick = Math.max(currentTick + 1, ceilDiv(deadlineNanos - originNanos, tickNanos));
+        int bucket = (int) (tick & mask);
+        entryLock.lock();
+        try {
+            if (freeEntry == NONE) {
+                grow();
+            }
+            int entry = freeEntry;
+            freeEntry = nextEntries[entry];
+            seatHoldIds[entry] = seatHoldId;
+            ticks[entry] = tick;
+            nextEntries[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+        } finally {
+            entryLock.unlock();
+        }
+    }
+
+    /**
+     * Drain the buckets of the ticks which passed and hand over the expired holds
+     * @param nowNanos - the current time
+     * @param expired - called with the seatHoldId of every hold whose deadline passed, returns true if it
+     *                released the hold
+     * @return the number of released holds, 0 if another thread is already advancing the wheel
+     */
+    int advance(long nowNanos, IntPredicate expired) {
+        if (!advanceLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long nowTick = Math.floorDiv(nowNanos - originNanos, tickNanos);
+            //Past one full turn every bucket is drained once
+            long fromTick = Math.max(currentTick + 1, nowTick - mask);
+            int count = 0;
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                int due = drain((int) (tick & mask), nowTick);
+                for (int i = 0; i < due; i++) {
+                    if (expired.test(dueIds[i])) {
+                        count++;
+                    }
+                }
+            }
+            if (nowTick > currentTick) {
+                currentTick = nowTick;
+            }
+            return count;
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+    //Move the seatHoldIds of the due entries of a bucket to dueIds, the ones of a later turn stay in the bucket
+    private int drain(int bucket, long nowTick) {
+        int due = 0;
+        entryLock.lock();
+        try {
+            int entry = buckets[bucket];
+            buckets[bucket] = NONE;
+            while (entry != NONE) {
+                int next = nextEntries[entry];
+                if (ticks[entry] <= nowTick) {
+                    if (due == dueIds.length) {
+                        dueIds = Arrays.copyOf(dueIds, due * 2);
+                    }
+                    dueIds[due++] = seatHoldIds[entry];
+                    nextEntries[entry] = freeEntry;
+                    freeEntry = entry;
+                } else { //Belongs to a later turn of the wheel
+                    nextEntries[entry] = buckets[bucket];
+                    buckets[bucket] = entry;
+                }
+                entry = next;
+            }
+        } finally {
+            entryLock.unlock();
+        }
+        return due;
+    }
+
+    //Double the entries, called with the entryLock when none is free
+    private void grow() {
+        int size = seatHoldIds.length;
+        seatHoldIds = Arrays.copyOf(seatHoldIds, size * 2);
+        ticks = Arrays.copyOf(ticks, size * 2);
+        nextEntries = Arrays.copyOf(nextEntries, size * 2);
+        freeEntries(size);
+    }
+
+    //Link the entries from the first one to the end of the arrays as the free entries
+    private void freeEntries(int first) {
+        for (int entry = first; entry < nextEntries.length - 1; entry++) {
+            nextEntries[entry] = entry + 1;
+        }
+        nextEntries[nextEntries.length - 1] = NONE;
+        freeEntry = first;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+}
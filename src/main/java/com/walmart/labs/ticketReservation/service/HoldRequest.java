@@ -0,0 +1,24 @@
+package com.walmart.labs.ticketReservation.service;
+
+/**
+ * HoldRequest is one item of a batch of holds : the number of seats to hold for a customer
+ */
+public class HoldRequest {
+
+    private final int numSeats;
+    private final String customerEmail;
+
+    public HoldRequest(int numSeats, String customerEmail) {
+        this.numSeats = numSeats;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.util.List;
+
+/**
+ * TicketService which can also look up and cancel the reservations, for customer support
+ */
+public interface ReservationService extends TicketService {
+
+    /**
+     * Find a reservation
+     *
+     * @param reservationId the reservation confirmation code
+     * @return the reserved SeatHold, null if there is no such reservation
+     */
+    SeatHold findReservation(String reservationId);
+
+    /**
+     * Find all the reservations of a customer
+     *
+     * @param customerEmail the email address of the customer
+     * @return the reserved SeatHolds of the customer, empty if there is none
+     */
+    List<SeatHold> findReservations(String customerEmail);
+
+    /**
+     * Find the reservation of a seat
+     *
+     * @param row     the row of the seat
+     * @param seatNum the number of the seat in its row
+     * @return the reserved SeatHold the seat belongs to, null if the seat is not reserved
+     */
+    SeatHold findReservation(int row, int seatNum);
+
+    /**
+     * Cancel a reservation and make its seats available again
+     *
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer to which the
+     *                      reservation is assigned
+     * @return the cancelled SeatHold, null if the reservation does not exist or is not for this customer
+     */
+    SeatHold cancelReservation(String reservationId, String customerEmail);
+
+    /**
+     * Give back seats held and not reserved, they are OPEN again at once instead of when the hold expires
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return the released SeatHold, null if there is no such hold for this customer
+     */
+    SeatHold releaseSeats(int seatHoldId, String customerEmail);
+}
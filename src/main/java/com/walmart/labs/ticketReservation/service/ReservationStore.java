@@ -0,0 +1,137 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The reservations of a venue, indexed by reservationId, by seatHoldId, by customer and by seat, so every lookup
+ * is a single map or array read whatever the number of reservations.
+ * The reservationId map decides which one of two concurrent removals of a reservation wins, the indexes
+ * by customer and by seat follow it.
+ */
+class ReservationStore {
+
+    private final Venue venue;
+
+    //Key -> reservationId, value -> the reserved seatHold
+    private final ConcurrentHashMap<String, SeatHold> reservations;
+
+    //Key -> seatHoldId, value -> the reserved seatHold, so reserving a hold again gives the same reservationId
+    private final ConcurrentHashMap<Integer, SeatHold> reservationsBySeatHold;
+
+    //Key -> customerEmail, value -> the reserved seatHolds of the customer
+    private final ConcurrentHashMap<String, Set<SeatHold>> reservationsByCustomer;
+
+    //The reserved seatHold of each seat, by seat index in the venue
+    private final AtomicReferenceArray<SeatHold> reservationsBySeat;
+
+    /**
+     * @param venue - the venue of the reserved seats
+     * @param expectedReservations - number of reservations to size the maps for
+     */
+    ReservationStore(Venue venue, int expectedReservations) {
+        this.venue = venue;
+        int capacity = Math.max(16, expectedReservations);
+        this.reservations = new ConcurrentHashMap<>(capacity);
+        this.reservationsBySeatHold = new ConcurrentHashMap<>(capacity);
+        this.reservationsByCustomer = new ConcurrentHashMap<>(capacity);
+        this.reservationsBySeat = new AtomicReferenceArray<>(venue.getMaxOccupancy());
+    }
+
+    /**
+     * @param seatHold - a reserved seatHold, with its reservationId
+     * @return false if there is already a reservation with this reservationId
+     */
+    boolean add(SeatHold seatHold) {
+        if (reservations.putIfAbsent(seatHold.getReservationId(), seatHold) != null) {
+            return false;
+        }
+        reservationsBySeatHold.put(seatHold.getSeatHoldId(), seatHold);
+        reservationsByCustomer.compute(seatHold.getCustomerEmail(), (customerEmail, seatHolds) -> {
+            Set<SeatHold> customerSeatHolds = (seatHolds != null) ? seatHolds : ConcurrentHashMap.newKeySet();
+            customerSeatHolds.add(seatHold);
+            return customerSeatHolds;
+        });
+        for (Seat seat : seatHold.getSeatsHold()) {
+            reservationsBySeat.set(indexOf(seat), seatHold);
+        }
+        return true;
+    }
+
+    /**
+     * @param seatHold - the reservation to remove
+     * @return false if it was not there anymore, ie removed by a concurrent call
+     */
+    boolean remove(SeatHold seatHold) {
+        if (!reservations.remove(seatHold.getReservationId(), seatHold)) {
+            return false;
+        }
+        for (Seat seat : seatHold.getSeatsHold()) {
+            //The seat may already be reserved again
+            reservationsBySeat.compareAndSet(indexOf(seat), seatHold, null);
+        }
+        reservationsBySeatHold.remove(seatHold.getSeatHoldId(), seatHold);
+        reservationsByCustomer.computeIfPresent(seatHold.getCustomerEmail(), (customerEmail, seatHolds) -> {
+            seatHolds.remove(seatHold);
+            return seatHolds.isEmpty() ? null : seatHolds;
+        });
+        return true;
+    }
+
+    /**
+     * The seatHoldId is handed out again, after the ids wrapped : a reservation of the old hold with this id is not
+     * given back for the new one. It is still found by its reservationId
+     * @param seatHoldId - the seatHoldId of a new hold
+     */
+    void forgetSeatHoldId(int seatHoldId) {
+        reservationsBySeatHold.remove(seatHoldId);
+    }
+
+    SeatHold get(String reservationId) {
+        return reservations.get(reservationId);
+    }
+
+    /**
+     * @return the reservation of the SeatHold, null if it is not reserved
+     */
+    SeatHold getBySeatHoldId(int seatHoldId) {
+        return reservationsBySeatHold.get(seatHoldId);
+    }
+
+    /**
+     * @return the reservations of the customer, empty if there is none
+     */
+    List<SeatHold> getByCustomer(String customerEmail) {
+        Set<SeatHold> seatHolds = reservationsByCustomer.get(customerEmail);
+        return (seatHolds == null) ? new ArrayList<>() : new ArrayList<>(seatHolds);
+    }
+
+    /**
+     * @return the reservation of the seat, null if it is not reserved
+     */
+    SeatHold getBySeat(int row, int seatNum) {
+        int index = venue.getSeatIndex(row, seatNum);
+        return (index < 0) ? null : reservationsBySeat.get(index);
+    }
+
+    Collection<SeatHold> values() {
+        return reservations.values();
+    }
+
+    int size() {
+        return reservations.size();
+    }
+
+    private int indexOf(Seat seat) {
+        return venue.getSeatIndex(seat.getRow(), seat.getSeatNum());
+    }
+
+}
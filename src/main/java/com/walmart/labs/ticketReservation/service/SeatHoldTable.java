@@ -0,0 +1,96 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The live SeatHolds by seatHoldId, without boxing the ids nor allocating a map entry for every hold.
+ * A SeatHold goes in the slot seatHoldId % capacity of an array. The seatHoldIds are handed out in sequence
+ * and a live hold has at least one seat, so with a capacity of at least the number of seats of the venue
+ * the live holds nearly always have distinct slots. A hold whose slot is taken by an older hold which has not
+ * expired yet goes to an overflow map instead.
+ *
+ * Every slot is changed with a compare-and-set, so removing a SeatHold decides which one of a reservation
+ * or an expiry gets it, as with ConcurrentHashMap.remove(key, value).
+ */
+class SeatHoldTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicReferenceArray<SeatHold> slots;
+
+    private final int mask;
+
+    //SeatHolds whose slot was taken, the overflow map is only read while it is not empty
+    private final ConcurrentHashMap<Integer, SeatHold> overflow = new ConcurrentHashMap<>();
+    private final AtomicInteger overflowCount = new AtomicInteger();
+
+    /**
+     * @param expectedHolds - most SeatHolds live at the same time, ie the number of seats of the venue
+     */
+    SeatHoldTable(int expectedHolds) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedHolds) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param seatHold - a new SeatHold, its seatHoldId is not in the table
+     */
+    void put(SeatHold seatHold) {
+        if (!slots.compareAndSet(slotOf(seatHold.getSeatHoldId()), null, seatHold)) {
+            overflowCount.incrementAndGet();
+            overflow.put(seatHold.getSeatHoldId(), seatHold);
+        }
+    }
+
+    /**
+     * @return the SeatHold, null if there is no live SeatHold with this seatHoldId
+     */
+    SeatHold get(int seatHoldId) {
+        SeatHold seatHold = slots.get(slotOf(seatHoldId));
+        if (seatHold != null && seatHold.getSeatHoldId() == seatHoldId) {
+            return seatHold;
+        }
+        return (overflowCount.get() == 0) ? null : overflow.get(seatHoldId);
+    }
+
+    /**
+     * @return false if the SeatHold was not in the table anymore, ie removed by a concurrent call
+     */
+    boolean remove(SeatHold seatHold) {
+        if (slots.compareAndSet(slotOf(seatHold.getSeatHoldId()), seatHold, null)) {
+            return true;
+        }
+        if (overflowCount.get() != 0 && overflow.remove(seatHold.getSeatHoldId(), seatHold)) {
+            overflowCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return a copy of the live SeatHolds, read while they change
+     */
+    List<SeatHold> values() {
+        List<SeatHold> seatHolds = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            SeatHold seatHold = slots.get(i);
+            if (seatHold != null) {
+                seatHolds.add(seatHold);
+            }
+        }
+        seatHolds.addAll(overflow.values());
+        return seatHolds;
+    }
+
+    private int slotOf(int seatHoldId) {
+        return seatHoldId & mask;
+    }
+
+}
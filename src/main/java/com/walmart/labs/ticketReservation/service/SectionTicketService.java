@@ -0,0 +1,28 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+/**
+ * TicketService which can also hold seats in a given section of the venue, ie "4 seats in section 112"
+ */
+public interface SectionTicketService extends TicketService {
+
+    /**
+     * The number of seats in a section of the venue that are neither held nor reserved
+     *
+     * @param sectionName the name of the section
+     * @return the number of tickets available in the section, 0 if there is no such section
+     */
+    int numSeatsAvailable(String sectionName);
+
+    /**
+     * Find and hold the best available seats of a section for a customer
+     *
+     * @param sectionName   the name of the section
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+     * information, null if there is no such section or not enough seats in it
+     */
+    SeatHold findAndHoldSeats(String sectionName, int numSeats, String customerEmail);
+}
@@ -0,0 +1,143 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import com.walmart.labs.ticketReservation.utils.Clock;
+import com.walmart.labs.ticketReservation.utils.SystemClock;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The implementation of the EventTicketService Interface
+ * Every event has its own TicketServiceImpl : its own venue, seat holds, reservations, id counters and locks.
+ * Nothing is shared between two events except the registry and the expiry thread, so independent events
+ * don't contend with each other.
+ */
+public class TicketEngine implements EventTicketService {
+
+    //Map of the events : Key -> eventId, value -> the service of the event
+    private Map<String, TicketServiceImpl> events;
+
+    private Clock clock;
+
+    //Thread which releases the expired SeatHolds of all the events, only when started
+    private ScheduledExecutorService expiryScheduler;
+
+    /**
+     * Initialize the engine without any event
+     */
+    public TicketEngine() {
+        this(new SystemClock());
+    }
+
+    /**
+     * Initialize the engine without any event
+     * @param clock - the time source for the seatHoldTimeOut of all the events
+     */
+    public TicketEngine(Clock clock) {
+        this.clock = (clock != null) ? clock : new SystemClock();
+        this.events = new ConcurrentHashMap<String, TicketServiceImpl>();
+    }
+
+    /**
+     * Add an event to the engine
+     * @param eventId - the event identifier
+     * @param venue - the venue of the event, it must not be shared with another event
+     * @param seatHoldTimeOut - The duration of the timeOut after which HELD(non-reserved) seats are freed up
+     * @return the service of the new event
+     * @throws TicketReservationException - if the eventId is invalid or already registered
+     */
+    public TicketServiceImpl registerEvent(String eventId, Venue venue, int seatHoldTimeOut)
+            throws TicketReservationException {
+
+        if (eventId == null || eventId.isEmpty()) {
+            throw new TicketReservationException("You need to provide the eventId.");
+        }
+
+        TicketServiceImpl service = new TicketServiceImpl(venue, seatHoldTimeOut, clock);
+        if (events.putIfAbsent(eventId, service) != null) {
+            throw new TicketReservationException(String.format("Event %s is already registered.", eventId));
+        }
+        return service;
+    }
+
+    /**
+     * Remove an event from the engine, its holds are not released
+     * @param eventId - the event identifier
+     * @return the service of the removed event, null if there was no such event
+     */
+    public TicketServiceImpl removeEvent(String eventId) {
+        return (eventId == null) ? null : events.remove(eventId);
+    }
+
+    /**
+     * @return the identifiers of all the registered events
+     */
+    public Set<String> getEventIds() {
+        return events.keySet();
+    }
+
+    public TicketServiceImpl forEvent(String eventId) {
+        return (eventId == null) ? null : events.get(eventId);
+    }
+
+    public int numSeatsAvailable(String eventId) {
+        TicketService service = forEvent(eventId);
+        return (service == null) ? 0 : service.numSeatsAvailable();
+    }
+
+    public SeatHold findAndHoldSeats(String eventId, int numSeats, String customerEmail) {
+        TicketService service = forEvent(eventId);
+        return (service == null) ? null : service.findAndHoldSeats(numSeats, customerEmail);
+    }
+
+    public String reserveSeats(String eventId, int seatHoldId, String customerEmail) {
+        TicketService service = forEvent(eventId);
+        return (service == null) ? null : service.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Release the expired SeatHolds of all the events
+     * @return the number of holds which expired
+     */
+    public int collectExpiredSeatHolds() {
+        int count = 0;
+        for (TicketServiceImpl service : events.values()) {
+            count += service.collectExpiredSeatHolds();
+        }
+        return count;
+    }
+
+    /**
+     * Start one background thread which releases the expired SeatHolds of all the events
+     * @param period - time between two collections
+     * @param unit - unit of the period
+     */
+    public synchronized void startExpiryScheduler(long period, TimeUnit unit) {
+        if (expiryScheduler != null) {
+            return;
+        }
+        expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryScheduler.scheduleAtFixedRate(this::collectExpiredSeatHolds, period, period, unit);
+    }
+
+    /**
+     * Stop the background thread started by startExpiryScheduler()
+     */
+    public synchronized void stopExpiryScheduler() {
+        if (expiryScheduler != null) {
+            expiryScheduler.shutdownNow();
+            expiryScheduler = null;
+        }
+    }
+}
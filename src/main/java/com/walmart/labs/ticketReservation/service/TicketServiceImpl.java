@@ -1,37 +1,87 @@
 package com.walmart.labs.ticketReservation.service;
 
 import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.journal.Journal;
+import com.walmart.labs.ticketReservation.journal.JournalRecord;
+import com.walmart.labs.ticketReservation.journal.VenueSnapshot;
+import com.walmart.labs.ticketReservation.metrics.TicketServiceMetrics;
 import com.walmart.labs.ticketReservation.model.seat.Seat;
 import com.walmart.labs.ticketReservation.model.seat.SeatHold;
 import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import com.walmart.labs.ticketReservation.model.venue.Section;
 import com.walmart.labs.ticketReservation.model.venue.Venue;
-import com.walmart.labs.ticketReservation.utils.IdCreator;
-import com.walmart.labs.ticketReservation.utils.ReservationIdCreator;
-import com.walmart.labs.ticketReservation.utils.SeatHoldIdCreator;
-import com.walmart.labs.ticketReservation.utils.Utils;
+import com.walmart.labs.ticketReservation.utils.*;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The implementation of the TicketService Interface
+ * The service itself takes no lock : the Venue locks the rows it changes, and removing a SeatHold from
+ * the seatHoldTable decides which one of a reservation or an expiry gets to process its seats.
+ * Reservations are kept in a ReservationStore, indexed by reservationId, customer and seat for the lookups
+ * and cancellations of ReservationService.
+ * Every operation is counted and timed in the TicketServiceMetrics, see getMetrics().
+ * With a Journal every hold, expiry and reservation is appended to it, and a reservation is only confirmed once
+ * its record is durable. A service created on an existing journal replays it first to rebuild its state,
+ * starting from its last snapshot when it has one (see takeSnapshot()).
  */
-public class TicketServiceImpl implements TicketService {
+public class TicketServiceImpl implements BatchTicketService, ReservationService, SectionTicketService {
 
     private Venue venue;
 
-    //Map to hold SeatHold : Key -> seatHoldId, value -> seatHold Object
-    private Map<Integer, SeatHold> seatHoldMap;
+    //The live SeatHolds by seatHoldId
+    private SeatHoldTable seatHoldTable;
 
-    //Map to hold concrete reservation : Key -> reservationId, value -> seatHold Object
-    private Map<String, SeatHold> reservationsMap;
+    //Concrete reservations, by reservationId, customer and seat
+    private ReservationStore reservationStore;
 
+    //Reservations appended to the journal and not durable yet : out of the seatHoldTable, not yet in the
+    //reservationStore, so only a snapshot sees them
+    private final Set<SeatHold> pendingReservations = ConcurrentHashMap.newKeySet();
+
+    //seatHoldTimeOut is in milliseconds
     private int seatHoldTimeOut;
 
-    private static IdCreator reservationIdCreator;
-    private static IdCreator seatHoldIdCreator;
+    private Clock clock;
+
+    //Deadlines of the live SeatHolds
+    private HoldExpiryWheel expiryWheel;
+
+    //Thread which releases the expired SeatHolds, only when started
+    private ScheduledExecutorService expiryScheduler;
+
+    private TicketServiceMetrics metrics;
+
+    //Log of the state transitions, null when the service keeps its state in memory only
+    private Journal journal;
+
+    //Latest snapshot of the service, null when no snapshot is taken
+    private Path snapshotPath;
+
+    //Thread which takes the snapshots, only when started
+    private ScheduledExecutorService snapshotScheduler;
+
+    private IdCreator reservationIdCreator;
+    //Creates the reservationIds unless setReservationIdCreator() was called, counted again by a recovery
+    private ReservationIdCreator reservationCounter;
+    //Replaced by setSeatHoldIdClass() while the service runs
+    private volatile SeatHoldIdCreator seatHoldIdCreator;
+
+    //Seats held and reserved by each customer, null when the customers have no limits. Replaced by
+    //setCustomerLimits() while the service runs : a call reads it once and counts its seats in that one
+    private volatile CustomerQuotas customerQuotas;
 
     private static int DEFAULT_SEAT_HOLD_TIMEOUT = 5;
 
+    //Buckets of the expiry wheel, and the number of ticks a seatHoldTimeOut is cut in
+    private static final int EXPIRY_WHEEL_SIZE = 512;
+    private static final int EXPIRY_TICKS_PER_TIMEOUT = 128;
+
     /**
      *  Initialize the ticket reservation service with just Venue and default seatHoldTimeOut
      * @param venue - the venue where the service needs to start
@@ -48,20 +98,410 @@ public class TicketServiceImpl implements TicketService {
      * @throws TicketReservationException - exception
      */
     public TicketServiceImpl(Venue venue, int seatHoldTimeOut) throws TicketReservationException {
+        this(venue, seatHoldTimeOut, new SystemClock());
+    }
+
+    /**
+     * Initialize the ticket reservation service with Venue, given seatHoldTimeOut and the clock to expire holds with
+     * @param venue - the venue where the service needs to start
+     * @param seatHoldTimeOut - The duration of the timeOut after which HELD(non-reserved) seats are freed up
+     * @param clock - the time source for the seatHoldTimeOut
+     * @throws TicketReservationException - exception
+     */
+    public TicketServiceImpl(Venue venue, int seatHoldTimeOut, Clock clock) throws TicketReservationException {
+        this(venue, seatHoldTimeOut, clock, null);
+    }
+
+    /**
+     * Initialize the ticket reservation service and rebuild its state from the journal
+     * The holds found in the journal get a whole seatHoldTimeOut again, from now
+     * @param venue - the venue where the service needs to start, with all its seats OPEN
+     * @param seatHoldTimeOut - The duration of the timeOut after which HELD(non-reserved) seats are freed up
+     * @param clock - the time source for the seatHoldTimeOut
+     * @param journal - the journal to replay and then append to, null to keep the state in memory only
+     * @throws TicketReservationException - exception
+     */
+    public TicketServiceImpl(Venue venue, int seatHoldTimeOut, Clock clock, Journal journal)
+            throws TicketReservationException {
+        this(venue, seatHoldTimeOut, clock, journal, null);
+    }
+
+    /**
+     * Initialize the ticket reservation service and rebuild its state from the snapshot and the journal after it
+     * The holds found get a whole seatHoldTimeOut again, from now
+     * @param venue - the venue where the service needs to start, with all its seats OPEN
+     * @param seatHoldTimeOut - The duration of the timeOut after which HELD(non-reserved) seats are freed up
+     * @param clock - the time source for the seatHoldTimeOut
+     * @param journal - the journal to replay and then append to, null to keep the state in memory only
+     * @param snapshotPath - the snapshot file to start from and to write by takeSnapshot(), it may not exist yet
+     * @throws TicketReservationException - exception
+     */
+    public TicketServiceImpl(Venue venue, int seatHoldTimeOut, Clock clock, Journal journal, Path snapshotPath)
+            throws TicketReservationException {
 
         if (venue == null) {
             throw new TicketReservationException("You need to provide the venue.");
         }
 
+        if (snapshotPath != null && journal == null) {
+            throw new TicketReservationException("Snapshots need a journal to replay after them.");
+        }
+
         this.venue = venue;
 
         //Set the seeatHoldTimeOut
         this.seatHoldTimeOut = (seatHoldTimeOut > 0) ? seatHoldTimeOut : DEFAULT_SEAT_HOLD_TIMEOUT;
+        this.clock = (clock != null) ? clock : new SystemClock();
+
+        long timeOutNanos = TimeUnit.MILLISECONDS.toNanos(this.seatHoldTimeOut);
+        expiryWheel = new HoldExpiryWheel(this.clock.nanoTime(),
+                Math.max(TimeUnit.MILLISECONDS.toNanos(1), timeOutNanos / EXPIRY_TICKS_PER_TIMEOUT), EXPIRY_WHEEL_SIZE);
 
-        seatHoldMap = new HashMap<Integer, SeatHold>();
-        reservationsMap = new HashMap<String, SeatHold>();
-        reservationIdCreator = new ReservationIdCreator();
+        seatHoldTable = new SeatHoldTable(venue.getMaxOccupancy());
+        reservationStore = new ReservationStore(venue, 0);
+        reservationCounter = new ReservationIdCreator();
+        reservationIdCreator = reservationCounter;
         seatHoldIdCreator = new SeatHoldIdCreator();
+        metrics = new TicketServiceMetrics(venue);
+
+        if (journal != null) {
+            recover(journal, snapshotPath);
+            this.journal = journal;
+            this.snapshotPath = snapshotPath;
+        }
+    }
+
+    /**
+     * Rebuild the venue and the maps from the snapshot and the journal after it, then continue the ids after
+     * the recovered ones
+     * The records are first folded into the last state of every SeatHold, so a seat is only changed once however
+     * many times it was held, released, reserved or cancelled. A record can already be in the snapshot, which was taken
+     * while the service was running : a HOLD or RESERVE of a SeatHold already known is skipped.
+     * The seat states come from the snapshot, then only the seats of the SeatHolds changed after it are set again.
+     */
+    private void recover(Journal journal, Path snapshotPath) throws TicketReservationException {
+        if (venue.getOpenSeatCount() != venue.getMaxOccupancy()) {
+            throw new TicketReservationException(
+                    "The journal can only be replayed on a venue with all its seats open.");
+        }
+
+        VenueSnapshot snapshot = (snapshotPath == null) ? null : VenueSnapshot.read(snapshotPath);
+        if (snapshot != null && !snapshot.isSnapshotOf(venue)) {
+            throw new TicketReservationException("The snapshot is not the one of this venue.");
+        }
+
+        //The live holds by seatHoldId, and the reservations by reservationId : seatHoldIds wrap, so an old
+        //reservation and a new hold or reservation may share one. A record is the same as one already there
+        //only if it has the same seats
+        Map<Integer, JournalRecord> holds = new HashMap<>();
+        Map<String, JournalRecord> reservations = new HashMap<>();
+        //Latest reservation of each seatHoldId
+        Map<Integer, JournalRecord> reservationsBySeatHold = new HashMap<>();
+        int[] nextIds = {0, 0};
+        if (snapshot != null) {
+            for (JournalRecord record : snapshot.getReservations()) {
+                //A reservation being synced may be there twice
+                if (reservations.putIfAbsent(record.getReservationId(), record) == null) {
+                    reservationsBySeatHold.put(record.getSeatHoldId(), record);
+                }
+            }
+            for (JournalRecord record : snapshot.getHolds()) {
+                //A hold reserved while the snapshot was taken is in both
+                if (!sameSeatHold(record, reservationsBySeatHold.get(record.getSeatHoldId()))) {
+                    holds.put(record.getSeatHoldId(), record);
+                }
+            }
+            nextIds[0] = snapshot.getNextSeatHoldId();
+            nextIds[1] = snapshot.getNextReservationId();
+        }
+
+        //Seats of the SeatHolds changed after the snapshot, by row * columns + seatNum
+        BitSet changedSeats = new BitSet();
+        journal.replay((snapshot == null) ? 0 : snapshot.getLsn(), record -> {
+            int seatHoldId = record.getSeatHoldId();
+            JournalRecord previous;
+            switch (record.getType()) {
+                case HOLD:
+                    //Only a HOLD hands out a new id : the counter goes on after the latest one, in wrap order
+                    nextIds[0] = laterSeatHoldId((seatHoldId + 1) & Integer.MAX_VALUE, nextIds[0]);
+                    if (!sameSeatHold(record, holds.get(seatHoldId))
+                            && !sameSeatHold(record, reservationsBySeatHold.get(seatHoldId))) {
+                        holds.put(seatHoldId, record);
+                        markSeats(record, changedSeats);
+                    }
+                    break;
+                case RELEASE:
+                    previous = holds.remove(seatHoldId);
+                    markSeats(previous, changedSeats);
+                    break;
+                case CANCEL:
+                    //A CANCEL written without its reservationId ends the latest reservation of the seatHoldId
+                    previous = (record.getReservationId() == null) ? reservationsBySeatHold.get(seatHoldId)
+                            : reservations.get(record.getReservationId());
+                    if (previous != null && previous.getSeatHoldId() == seatHoldId) {
+                        reservations.remove(previous.getReservationId(), previous);
+                        reservationsBySeatHold.remove(seatHoldId, previous);
+                        markSeats(previous, changedSeats);
+                    }
+                    break;
+                case RESERVE:
+                    nextIds[1] = Math.max(nextIds[1], counterOf(record.getReservationId()) + 1);
+                    if (sameSeatHold(record, holds.get(seatHoldId))) {
+                        markSeats(holds.remove(seatHoldId), changedSeats);
+                    }
+                    //Already there from the snapshot, or a reservationId which was taken : the first one stays
+                    if (reservations.putIfAbsent(record.getReservationId(), record) == null) {
+                        reservationsBySeatHold.put(seatHoldId, record);
+                        markSeats(record, changedSeats);
+                    }
+                    break;
+                default:
+            }
+        });
+
+        seatHoldTable = new SeatHoldTable(venue.getMaxOccupancy());
+        reservationStore = new ReservationStore(venue, reservations.size());
+        List<Seat> heldSeats = new ArrayList<>();
+        List<Seat> reservedSeats = new ArrayList<>();
+        for (JournalRecord record : holds.values()) {
+            SeatHold seatHold = recoverSeatHold(record, changedSeats, heldSeats);
+            seatHoldTable.put(seatHold);
+        }
+        //The latest reservation of each seatHoldId last, it is the one a repeated reserve gets
+        List<JournalRecord> reserved = new ArrayList<>(reservations.size());
+        for (JournalRecord record : reservations.values()) {
+            if (reservationsBySeatHold.get(record.getSeatHoldId()) != record) {
+                reserved.add(record);
+            }
+        }
+        reserved.addAll(reservationsBySeatHold.values());
+        for (JournalRecord record : reserved) {
+            SeatHold seatHold = recoverSeatHold(record, changedSeats, reservedSeats);
+            seatHold.setReservationId(record.getReservationId());
+            reservationStore.add(seatHold);
+        }
+
+        List<Seat> openSeats = new ArrayList<>();
+        if (snapshot != null) {
+            venue.restoreSeatStates(snapshot.getSeatStates());
+            for (int index = changedSeats.nextSetBit(0); index >= 0; index = changedSeats.nextSetBit(index + 1)) {
+                openSeats.add(venue.getSeatByIndex(index));
+            }
+        }
+        try {
+            if (!openSeats.isEmpty()) {
+                venue.processSeats(openSeats, SeatState.OPEN);
+            }
+            if (!heldSeats.isEmpty()) {
+                venue.processSeats(heldSeats, SeatState.HOLD);
+            }
+            if (!reservedSeats.isEmpty()) {
+                venue.processSeats(reservedSeats, SeatState.RESERVED);
+            }
+        } catch (Exception e) {
+            throw new TicketReservationException("The journal does not match the venue.", e);
+        }
+
+        reservationCounter = new ReservationIdCreator(nextIds[1]);
+        reservationIdCreator = reservationCounter;
+        seatHoldIdCreator = new SeatHoldIdCreator(nextIds[0]);
+
+        long deadline = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(seatHoldTimeOut);
+        for (SeatHold seatHold : seatHoldTable.values()) {
+            expiryWheel.schedule(seatHold.getSeatHoldId(), deadline);
+        }
+    }
+
+    //The reservationIds of a ReservationIdCreator are numbers, the others are not counted
+    private static int counterOf(String reservationId) {
+        if (reservationId.isEmpty() || reservationId.length() > 10) {
+            return -1;
+        }
+        for (int i = 0; i < reservationId.length(); i++) {
+            if (reservationId.charAt(i) < '0' || reservationId.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        long counter = Long.parseLong(reservationId);
+        return (counter < Integer.MAX_VALUE) ? (int) counter : -1;
+    }
+
+    //Records of the same SeatHold : same seatHoldId, customer and seats
+    private static boolean sameSeatHold(JournalRecord record, JournalRecord other) {
+        if (other == null || record.getSeatHoldId() != other.getSeatHoldId()
+                || !record.getCustomerEmail().equals(other.getCustomerEmail())
+                || record.getNumberOfSeats() != other.getNumberOfSeats()) {
+            return false;
+        }
+        for (int i = 0; i < record.getNumberOfSeats(); i++) {
+            if (record.getRow(i) != other.getRow(i) || record.getSeatNum(i) != other.getSeatNum(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //The later of two seatHoldIds, in the order they are handed out : ids handed out about the same time
+    //are less than 2^30 apart, whether or not the ids wrapped between them
+    private static int laterSeatHoldId(int id, int other) {
+        return (((id - other) & Integer.MAX_VALUE) < (1 << 30)) ? id : other;
+    }
+
+    private void markSeats(JournalRecord record, BitSet seats) {
+        if (record == null) {
+            return;
+        }
+        for (int i = 0; i < record.getNumberOfSeats(); i++) {
+            int index = venue.getSeatIndex(record.getRow(i), record.getSeatNum(i));
+            //A seat which is not part of the venue fails when its SeatHold is built
+            if (index >= 0) {
+                seats.set(index);
+            }
+        }
+    }
+
+    /**
+     * Build the SeatHold of a record
+     * @param changedSeats - the seats to set again, all of them without a snapshot
+     * @param seatsToSet - the seats of the SeatHold which are changed are added to it
+     */
+    private SeatHold recoverSeatHold(JournalRecord record, BitSet changedSeats, List<Seat> seatsToSet)
+            throws TicketReservationException {
+        List<Seat> seats = new ArrayList<>(record.getNumberOfSeats());
+        for (int i = 0; i < record.getNumberOfSeats(); i++) {
+            Seat seat = venue.getSeat(record.getRow(i), record.getSeatNum(i));
+            if (seat == null) {
+                throw new TicketReservationException("The journal does not match the venue.");
+            }
+            seats.add(seat);
+            if (changedSeats.get(venue.getSeatIndex(seat.getRow(), seat.getSeatNum()))) {
+                seatsToSet.add(seat);
+            }
+        }
+        return new SeatHold(record.getSeatHoldId(), record.getCustomerEmail(), seats);
+    }
+
+    /**
+     * Write a snapshot of the holds and reservations, so a recovery only replays the journal after it
+     * Holds and reservations go on while it is taken : nothing is locked and the maps are read as they change.
+     * Every record logged before the LSN of the snapshot is already in the maps, as they are changed before the
+     * journal is appended to.
+     * @throws TicketReservationException - if the service has no journal or snapshot file, or it can't be written
+     */
+    public synchronized void takeSnapshot() throws TicketReservationException {
+        if (journal == null || snapshotPath == null) {
+            throw new TicketReservationException("Snapshots need a journal and a snapshot file.");
+        }
+
+        long lsn = journal.getLastLsn();
+        //Holds and releases are appended without a sync : the snapshot must not point past the durable journal
+        journal.sync(lsn);
+        //Ids created now are above all the ones already handed out
+        int nextSeatHoldId = seatHoldIdCreator.nextId();
+        int nextReservationId = reservationCounter.nextId();
+        //The pending ones first : a reservation leaves them only once it is in the reservationStore
+        List<SeatHold> reservedHolds = new ArrayList<>(pendingReservations);
+        reservedHolds.addAll(reservationStore.values());
+        VenueSnapshot.of(lsn, nextSeatHoldId, nextReservationId, venue, seatHoldTable.values(),
+                reservedHolds).write(snapshotPath);
+    }
+
+    /**
+     * Start a background thread which takes a snapshot periodically
+     * @param period - time between two snapshots
+     * @param unit - unit of the period
+     * @throws TicketReservationException - if the service has no journal or snapshot file
+     */
+    public synchronized void startSnapshotScheduler(long period, TimeUnit unit) throws TicketReservationException {
+        if (journal == null || snapshotPath == null) {
+            throw new TicketReservationException("Snapshots need a journal and a snapshot file.");
+        }
+        if (snapshotScheduler != null) {
+            return;
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "venue-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (TicketReservationException e) {
+                //The previous snapshot is still there : try again next time
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stop the background thread started by startSnapshotScheduler()
+     */
+    public synchronized void stopSnapshotScheduler() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+    }
+
+    /**
+     * Create the reservationIds with another IdCreator, ie a SnowflakeIdCreator with the node id of this service,
+     * so they are unique across the nodes of a cluster and their restarts, and can't be guessed.
+     * It must be set again after a restart, the journal of the service can have both kinds of reservationIds
+     * @param idCreator - the creator of the reservationIds
+     * @throws TicketReservationException - if there is no creator
+     */
+    public synchronized void setReservationIdCreator(IdCreator idCreator) throws TicketReservationException {
+        if (idCreator == null) {
+            throw new TicketReservationException("You need to provide the reservationId creator.");
+        }
+        reservationIdCreator = idCreator;
+    }
+
+    /**
+     * Hand out only the seatHoldIds of one residue class, ie the ones which leave residue divided by modulus.
+     * Each shard of a ShardedTicketService takes its own class, (index of the shard, number of shards), so a
+     * seatHoldId names its shard. It must be set again after a restart, before the service takes holds
+     * @param residue - the class of this service, between 0 and modulus - 1
+     * @param modulus - the number of classes
+     * @throws TicketReservationException - if the residue is not between 0 and modulus - 1
+     */
+    public synchronized void setSeatHoldIdClass(int residue, int modulus) throws TicketReservationException {
+        seatHoldIdCreator = new SeatHoldIdCreator(seatHoldIdCreator.nextId(), residue, modulus);
+    }
+
+    /**
+     * Limit the seats each customer can hold and reserve : a hold which would go over a limit is refused
+     * before any seat is looked for. The holds and reservations already made count against the limits,
+     * which are meant to be set before the service takes holds
+     * @param maxHeldSeats - most seats a customer can hold at once
+     * @param maxSeats - most seats a customer can hold and reserve in all
+     * @throws TicketReservationException - if a limit is not positive
+     */
+    public synchronized void setCustomerLimits(int maxHeldSeats, int maxSeats) throws TicketReservationException {
+        if (maxHeldSeats <= 0 || maxSeats <= 0) {
+            throw new TicketReservationException("The customer limits need to be positive.");
+        }
+
+        CustomerQuotas quotas = new CustomerQuotas(maxHeldSeats, maxSeats);
+        for (SeatHold seatHold : seatHoldTable.values()) {
+            quotas.add(seatHold.getCustomerEmail(), seatHold.getSeatsHold().size(), 0);
+        }
+        //Counted as held until they are durable
+        for (SeatHold seatHold : pendingReservations) {
+            quotas.add(seatHold.getCustomerEmail(), seatHold.getSeatsHold().size(), 0);
+        }
+        for (SeatHold seatHold : reservationStore.values()) {
+            quotas.add(seatHold.getCustomerEmail(), 0, seatHold.getSeatsHold().size());
+        }
+        customerQuotas = quotas;
+    }
+
+    /**
+     * Counters and latencies of this service, they can be published with registerMBean() or report()
+     * @return the metrics of this service
+     */
+    public TicketServiceMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -72,10 +512,16 @@ public class TicketServiceImpl implements TicketService {
         return venue.getOpenSeatCount();
     }
 
+    public int numSeatsAvailable(String sectionName) {
+        Section section = venue.getSection(sectionName);
+        return (section == null) ? 0 : section.getOpenSeatCount();
+    }
+
     /**
      * Method to return the best possible seat in the whole Venue
      * Currently I don't have priority attached with seat,
      * default inherent priority assumed is left-front row > right-last row
+     * The Venue keeps an index of the OPEN seats, so this does not scan the seats already taken
      * @return return the best possible seat in the whole Venue
      */
     public Seat findBestSeat() {
@@ -85,46 +531,83 @@ public class TicketServiceImpl implements TicketService {
             return null; //As the Interface is fixed, other option is to extend Interface
         }
 
-        //This is not a great way to choose bestSeat : but bestSeat depends on Venue architecture
-        // For now I am just looping over from 1st(Front) row and left most (0,0) to last row(Back)-right most seat
-        // and the first OPEN seat is the best seat
+        //The claimed seat is already moved to PROCESSING by the Venue
+        long start = clock.nanoTime();
+        Seat seat = venue.claimBestOpenSeat();
+        metrics.recordFindBestSeat(clock.nanoTime() - start);
+        return seat;
+    }
 
-        for (int row = 0; row < venue.getNumberOfRows(); row++) {
-            for (int column = 0; column < venue.getNumberOfSeatsEachRow(); column++) {
-                Seat seat = venue.getSeat(row, column);
+    /**
+     * This method does kind of garbage collection of the seats held beyond the seatHoldTimeOut
+     * Only the holds whose deadline passed since the last call are looked at, see HoldExpiryWheel.
+     * Must be called recursively within some minutes, or let startExpiryScheduler() call it
+     * @return the number of holds which expired, reserved holds are not counted
+     */
+    public int collectExpiredSeatHolds() {
+        long start = clock.nanoTime();
+        int expired = expiryWheel.advance(start, this::expireSeatHold);
+        metrics.recordExpirySweep(clock.nanoTime() - start);
+        return expired;
+    }
 
-                //Find if this seat is OPEN : if OPEN then process it for reservation
-                if (seat.getSeatState().equals(SeatState.OPEN)) {
-                    try {
-                        venue.processSeat(seat, SeatState.PROCESSING);
-                    } catch (Exception e) {
-                        //throw new TicketReservationException("There is an exception processing seat");
-                    }
+    private boolean expireSeatHold(int seatHoldId) {
+        //Free the resource, unless it got reserved or released in the meantime. The seatHoldId is handed out
+        //again only after Integer.MAX_VALUE holds, long after its deadline
+        SeatHold seatHold = seatHoldTable.get(seatHoldId);
+        if (seatHold == null || !seatHoldTable.remove(seatHold)) {
+            return false;
+        }
+        openSeatHold(seatHold);
+        metrics.recordExpiredHold(seatHold.getSeatsHold().size());
+        return true;
+    }
 
-                    return seat;
-                }
+    //The seats of a hold taken out of the seatHoldTable are OPEN again
+    private void openSeatHold(SeatHold seatHold) {
+        if (journal != null) {
+            try {
+                journal.append(JournalRecord.release(seatHold.getSeatHoldId()));
+            } catch (TicketReservationException tre) {
+                //Not in the journal : a replay gives the hold a new seatHoldTimeOut, so it expires again anyway
             }
         }
-        return null;
+        try {
+            venue.processSeats(seatHold.getSeatsHold(), SeatState.OPEN);
+        } catch (Exception exception) {
+            // Error freeing the resource
+        }
+        CustomerQuotas quotas = customerQuotas;
+        if (quotas != null) {
+            quotas.releaseHeld(seatHold.getCustomerEmail(), seatHold.getSeatsHold().size());
+        }
     }
 
     /**
-     * This method does kind of garbage collection of the seats held beyond the seatHoldTimeOut
-     * Must be called recursively within some minutes
-     */
-    public void collectExpiredSeatHolds() {
-        Date currentDate = new Date();
-        for (Map.Entry<Integer, SeatHold> entry : seatHoldMap.entrySet()) {
-            SeatHold seatHold = entry.getValue();
-            long timePassed = currentDate.getTime() - seatHold.getCreationTS().getTime();
-            if (timePassed >= seatHoldTimeOut) { //Then free the resource
-                try {
-                    venue.processSeats(seatHold.getSeatsHold(), SeatState.OPEN);
-                } catch (Exception exception) {
-                    // Error freeing the resource
-                }
-                seatHoldMap.remove(seatHold.getSeatHoldId(), seatHold);
-            }
+     * Start a background thread which releases the expired SeatHolds a few times per seatHoldTimeOut
+     */
+    public synchronized void startExpiryScheduler() {
+        if (expiryScheduler != null) {
+            return;
+        }
+        expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+                TimeUnit.MILLISECONDS.toNanos(seatHoldTimeOut) / EXPIRY_TICKS_PER_TIMEOUT);
+        expiryScheduler.scheduleAtFixedRate(this::collectExpiredSeatHolds, periodNanos, periodNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop the background thread started by startExpiryScheduler()
+     */
+    public synchronized void stopExpiryScheduler() {
+        if (expiryScheduler != null) {
+            expiryScheduler.shutdownNow();
+            expiryScheduler = null;
         }
     }
 
@@ -134,43 +617,73 @@ public class TicketServiceImpl implements TicketService {
      * @param customerEmail unique identifier for the customer
      * @return SeatHold object with the heldseats information
      */
-    public synchronized SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        long start = clock.nanoTime();
+        SeatHold seatHold = holdSeats(null, numSeats, customerEmail);
+        metrics.recordHold(seatHold != null, clock.nanoTime() - start);
+        return seatHold;
+    }
+
+    /**
+     * finds and holds the best possible n (numSeats) seats of a section
+     * Only the seats, counters and locks of that section are looked at
+     * @param sectionName   the name of the section
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return SeatHold object with the heldseats information, null if there is no such section
+     */
+    public SeatHold findAndHoldSeats(String sectionName, int numSeats, String customerEmail) {
+        long start = clock.nanoTime();
+        SeatHold seatHold = (sectionName == null) ? null : holdSeats(sectionName, numSeats, customerEmail);
+        metrics.recordHold(seatHold != null, clock.nanoTime() - start);
+        return seatHold;
+    }
+
+    //In the whole venue when sectionName is null
+    private SeatHold holdSeats(String sectionName, int numSeats, String customerEmail) {
+        //Check the request is Valid, before any seat or lock of the venue is touched : a hold has at least one seat
+        if (numSeats <= 0 || !Utils.validate(customerEmail)) {
+            return null;
+        }
+
         //Check for Availability for Seats
-        if (numSeats > numSeatsAvailable()) {
+        if (numSeats > ((sectionName == null) ? numSeatsAvailable() : numSeatsAvailable(sectionName))) {
             return null;
         }
 
-        //Check if the user Email is Valid
-        if (!Utils.validate(customerEmail)) {
+        //Check the limits of the customer, the seats are counted from now
+        CustomerQuotas quotas = customerQuotas;
+        if (quotas != null && !quotas.tryHold(customerEmail, numSeats)) {
             return null;
         }
 
-        //Now let's try to books all of these seats
-        List<Seat> seats = new ArrayList<>();
-        for (int i = 0; i < numSeats; i++) {
-            Seat seat = findBestSeat();
-            if (seat == null) { //No seats can be found - remove others from Hold
-                try {
-                    venue.processSeats(seats, SeatState.OPEN);
-                } catch (Exception e) { //Exception Opening the Held seats
-                }
-                return null;
-            }
-            seats.add(seat);
+        //Seat the whole party together in one row first, else split it across the best seats
+        List<Seat> seats = (sectionName == null) ? venue.holdBestSeats(numSeats)
+                : venue.holdBestSeats(sectionName, numSeats);
+        if (seats == null) {
+            releaseHeldQuota(quotas, customerEmail, numSeats);
+            return null;
         }
 
-        //Hold all the seats
-        try {
-            venue.processSeats(seats, SeatState.HOLD);
-        } catch (Exception e) {
-            try {
-                venue.processSeats(seats, SeatState.OPEN);
-            } catch (Exception innerException) { //Exception Opening the Held seats
-            }
+        return createSeatHold(quotas, customerEmail, seats);
+    }
+
+    private static void releaseHeldQuota(CustomerQuotas quotas, String customerEmail, int numSeats) {
+        if (quotas != null) {
+            quotas.releaseHeld(customerEmail, numSeats);
         }
+    }
 
+    /**
+     * Register a SeatHold for seats which are already held, and counted in the quota of the customer
+     * @param quotas - the quotas the seats were counted in, null if none
+     * @return the SeatHold, null if it could not be created and the seats were opened again
+     */
+    private SeatHold createSeatHold(CustomerQuotas quotas, String customerEmail, List<Seat> seats) {
         SeatHold seatHold;
-        int seatHoldId = Integer.valueOf(seatHoldIdCreator.createId());
+        int seatHoldId = seatHoldIdCreator.nextId();
+        //A retry of the old hold with this id must not get the reservation of the old one
+        reservationStore.forgetSeatHoldId(seatHoldId);
         try {
             seatHold = new SeatHold(seatHoldId, customerEmail, seats);
         } catch (TicketReservationException tre) {
@@ -179,10 +692,29 @@ public class TicketServiceImpl implements TicketService {
                 venue.processSeats(seats, SeatState.OPEN);
             } catch (Exception e) { //Exception Opening the Held seats
             }
+            releaseHeldQuota(quotas, customerEmail, seats.size());
             return null;
         }
 
-        seatHoldMap.put(seatHoldId, seatHold);
+        //In the map before the journal, so a snapshot sees every hold logged before its LSN
+        seatHoldTable.put(seatHold);
+        if (journal != null) {
+            try {
+                journal.append(JournalRecord.hold(seatHold));
+            } catch (TicketReservationException tre) {
+                //A hold which is not in the journal could not be reserved for good
+                seatHoldTable.remove(seatHold);
+                try {
+                    venue.processSeats(seats, SeatState.OPEN);
+                } catch (Exception e) { //Exception Opening the Held seats
+                }
+                releaseHeldQuota(quotas, customerEmail, seats.size());
+                return null;
+            }
+        }
+
+        long deadline = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(seatHoldTimeOut);
+        expiryWheel.schedule(seatHold.getSeatHoldId(), deadline);
         return seatHold;
     }
 
@@ -193,38 +725,330 @@ public class TicketServiceImpl implements TicketService {
      *                      seat hold is assigned
      * @return - ReservationId if reservation is confirmed
      */
-    public synchronized String reserveSeats(int seatHoldId, String customerEmail) {
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        long start = clock.nanoTime();
+        String reservationId = reserveSeatHold(seatHoldId, customerEmail);
+        metrics.recordReserve(reservationId != null, clock.nanoTime() - start);
+        return reservationId;
+    }
 
-        //Check if the user Email is Valid
+    private String reserveSeatHold(int seatHoldId, String customerEmail) {
+
+        //The email was validated when the seats were held : only the customer of the hold is equal to it
+        SeatHold seatHold = takeSeatHold(seatHoldId, customerEmail);
+        if (seatHold == null) {
+            return reservedBefore(seatHoldId, customerEmail);
+        }
+
+        if (!commitSeatHold(seatHold)) {
+            return null;
+        }
+
+        //Published once durable, so a repeated reserve never gets a reservationId which is rolled back
+        seatHold.setReservationId(reservationIdCreator.createId());
+        if (!journalReservations(Collections.singletonList(seatHold))) {
+            return null;
+        }
+        return publishReservation(seatHold);
+    }
+
+    /**
+     * finds and holds the best possible seats for a batch of customers, in the order of the batch
+     * The seats of the whole batch are found and held under a single acquisition of the venue locks
+     * @param holdRequests the number of seats and the customer of each hold
+     * @return the SeatHold of each request, null for a request which could not be held
+     */
+    public List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+        if (holdRequests == null) {
+            return new ArrayList<>();
+        }
+
+        //Invalid requests and requests over the limits of their customer ask for 0 seats, the venue skips them
+        CustomerQuotas quotas = customerQuotas;
+        int[] numSeats = new int[holdRequests.size()];
+        for (int i = 0; i < numSeats.length; i++) {
+            HoldRequest holdRequest = holdRequests.get(i);
+            if (holdRequest != null && holdRequest.getNumSeats() > 0 && Utils.validate(holdRequest.getCustomerEmail())
+                    && (quotas == null || quotas.tryHold(holdRequest.getCustomerEmail(), holdRequest.getNumSeats()))) {
+                numSeats[i] = holdRequest.getNumSeats();
+            }
+        }
+
+        List<List<Seat>> batch = venue.holdBestSeats(numSeats);
+
+        List<SeatHold> seatHolds = new ArrayList<>(numSeats.length);
+        for (int i = 0; i < numSeats.length; i++) {
+            List<Seat> seats = batch.get(i);
+            if (seats == null && numSeats[i] > 0) {
+                releaseHeldQuota(quotas, holdRequests.get(i).getCustomerEmail(), numSeats[i]);
+            }
+            SeatHold seatHold = (seats == null) ? null
+                    : createSeatHold(quotas, holdRequests.get(i).getCustomerEmail(), seats);
+            //Counted but not timed : the latency of a batch is not the latency of one hold
+            metrics.recordHold(seatHold != null, -1);
+            seatHolds.add(seatHold);
+        }
+        return seatHolds;
+    }
+
+    /**
+     * reserve the seats of a batch of holds of the same customer
+     * Every hold is reserved as one unit, and the journal is synced once for the whole batch
+     * @param seatHoldIds   the seat hold identifiers
+     * @param customerEmail the email address of the customer to which the
+     *                      seat holds are assigned
+     * @return the ReservationId of each hold, null for a hold which could not be reserved
+     */
+    public List<String> reserveSeatsBatch(List<Integer> seatHoldIds, String customerEmail) {
+        if (seatHoldIds == null) {
+            return new ArrayList<>();
+        }
+
+        List<String> reservationIds = new ArrayList<>(Collections.nCopies(seatHoldIds.size(), (String) null));
+        SeatHold[] seatHolds = new SeatHold[seatHoldIds.size()];
+        //Holds which were not in the table, maybe reserved before or earlier in the batch
+        boolean[] notHeld = new boolean[seatHolds.length];
+        List<SeatHold> reserved = new ArrayList<>(seatHolds.length);
+        for (int i = 0; i < seatHolds.length; i++) {
+            Integer seatHoldId = seatHoldIds.get(i);
+            if (seatHoldId == null) {
+                continue;
+            }
+            SeatHold seatHold = takeSeatHold(seatHoldId, customerEmail);
+            if (seatHold == null) {
+                notHeld[i] = true;
+            } else if (commitSeatHold(seatHold)) {
+                seatHold.setReservationId(reservationIdCreator.createId());
+                reserved.add(seatHold);
+                seatHolds[i] = seatHold;
+            }
+        }
+
+        //One sync for the whole batch, then the reservations are published in the order of the batch
+        boolean durable = journalReservations(reserved);
+        for (int i = 0; i < seatHolds.length; i++) {
+            if (seatHolds[i] != null && durable) {
+                reservationIds.set(i, publishReservation(seatHolds[i]));
+            } else if (notHeld[i]) {
+                reservationIds.set(i, reservedBefore(seatHoldIds.get(i), customerEmail));
+            }
+            metrics.recordReserve(reservationIds.get(i) != null, -1);
+        }
+        return reservationIds;
+    }
+
+    public SeatHold findReservation(String reservationId) {
+        return (reservationId == null) ? null : reservationStore.get(reservationId);
+    }
+
+    public List<SeatHold> findReservations(String customerEmail) {
+        return (customerEmail == null) ? new ArrayList<>() : reservationStore.getByCustomer(customerEmail);
+    }
+
+    public SeatHold findReservation(int row, int seatNum) {
+        return reservationStore.getBySeat(row, seatNum);
+    }
+
+    /**
+     * cancel a reservation, its seats are OPEN again and can be held by the next findAndHoldSeats
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer to which the
+     *                      reservation is assigned
+     * @return the cancelled SeatHold, null if the reservation does not exist or is not for this customer
+     */
+    public SeatHold cancelReservation(String reservationId, String customerEmail) {
+        SeatHold seatHold = cancelSeatHold(reservationId, customerEmail);
+        metrics.recordCancel(seatHold != null);
+        return seatHold;
+    }
+
+    /**
+     * release seats held and not reserved, they are OPEN again and can be held by the next findAndHoldSeats
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return the released SeatHold, null if there is no such hold for this customer
+     */
+    public SeatHold releaseSeats(int seatHoldId, String customerEmail) {
         if (!Utils.validate(customerEmail)) {
             return null;
         }
 
-        SeatHold seatHold = seatHoldMap.get(seatHoldId);
+        SeatHold seatHold = takeSeatHold(seatHoldId, customerEmail);
+        if (seatHold != null) {
+            openSeatHold(seatHold);
+        }
+        return seatHold;
+    }
+
+    private SeatHold cancelSeatHold(String reservationId, String customerEmail) {
+
+        //Check if the user Email is Valid
+        if (reservationId == null || !Utils.validate(customerEmail)) {
+            return null;
+        }
+
+        SeatHold seatHold = reservationStore.get(reservationId);
+        if (seatHold == null || !customerEmail.equals(seatHold.getCustomerEmail())) {
+            return null;
+        }
+
+        //Removing it decides which one of two concurrent cancellations opens the seats
+        if (!reservationStore.remove(seatHold)) {
+            return null;
+        }
+
+        if (journal != null) {
+            try {
+                journal.sync(journal.append(JournalRecord.cancel(seatHold)));
+            } catch (TicketReservationException tre) {
+                //Not durable : the reservation stands
+                reservationStore.add(seatHold);
+                return null;
+            }
+        }
+
+        try {
+            venue.processSeats(seatHold.getSeatsHold(), SeatState.OPEN);
+        } catch (Exception e) { //Exception Opening the reserved seats
+        }
+        CustomerQuotas quotas = customerQuotas;
+        if (quotas != null) {
+            quotas.releaseReserved(customerEmail, seatHold.getSeatsHold().size());
+        }
+        return seatHold;
+    }
+
+    /**
+     * Take a SeatHold out of the seatHoldTable to reserve it
+     * @return the SeatHold, null if it does not exist, is not for this customer or was taken by a concurrent call
+     */
+    private SeatHold takeSeatHold(int seatHoldId, String customerEmail) {
+        SeatHold seatHold = seatHoldTable.get(seatHoldId);
 
         if (seatHold == null) { //Invalid seatHoldId : Either timeOuted or was never there
             return null;
         }
 
-        if (!customerEmail.equals(seatHold.getCustomerEmail())) { //seatHold exists but not for this user
+        if (!seatHold.getCustomerEmail().equals(customerEmail)) { //seatHold exists but not for this user
+            return null;
+        }
+
+        if (!seatHoldTable.remove(seatHold)) { //Expired or reserved by a concurrent call
             return null;
         }
+        return seatHold;
+    }
+
+    //Reserving a hold again gives its reservationId back, ie a checkout retried after a timeout
+    private String reservedBefore(int seatHoldId, String customerEmail) {
+        SeatHold reservation = reservationStore.getBySeatHoldId(seatHoldId);
+        if (reservation == null || !reservation.getCustomerEmail().equals(customerEmail)) {
+            return null;
+        }
+        return reservation.getReservationId();
+    }
 
+    /**
+     * Move the held seats of a SeatHold taken from the table to SeatState.RESERVED
+     * @return false if they were not all held anymore : they are then opened and the hold is dropped
+     */
+    private boolean commitSeatHold(SeatHold seatHold) {
         try {
-            venue.processSeats(seatHold.getSeatsHold(), SeatState.RESERVED);
-        } catch (Exception e) {
-            try {
-                //Exception reserving the held seats so trying to open it
-                venue.processSeats(seatHold.getSeatsHold(), SeatState.OPEN);
-            } catch (Exception innerExp) {
-                //Exception Opening the held seats
+            if (venue.reserveHeldSeats(seatHold.getSeatsHold())) {
+                return true;
             }
+        } catch (Exception e) { //No seat, or seats which are not of this venue, ie a hold replayed from a journal
         }
+        dropSeatHold(seatHold);
+        return false;
+    }
 
-        String reservationId = reservationIdCreator.createId();
-        seatHold.setReservationId(reservationId);
-        reservationsMap.put(reservationId, seatHold);
-        seatHoldMap.remove(seatHoldId, seatHold);
-        return reservationId;
+    //Open the seats of a SeatHold taken from the table which could not be reserved, and give back its quota
+    private void dropSeatHold(SeatHold seatHold) {
+        try {
+            venue.processSeats(seatHold.getSeatsHold(), SeatState.OPEN);
+        } catch (Exception e) { //Exception Opening the seats
+        }
+        CustomerQuotas quotas = customerQuotas;
+        if (quotas != null) {
+            quotas.releaseHeld(seatHold.getCustomerEmail(), seatHold.getSeatsHold().size());
+        }
+    }
+
+    /**
+     * Add a durable reservation to the reservations : from then on it is found, cancelled and given back
+     * to a repeated reserve
+     * @return the reservationId, null if another reservation has it already : the reservation is then cancelled
+     * rather than replacing the other one
+     */
+    private String publishReservation(SeatHold seatHold) {
+        boolean added = reservationStore.add(seatHold);
+        pendingReservations.remove(seatHold);
+        if (!added) {
+            if (journal != null) {
+                try {
+                    journal.sync(journal.append(JournalRecord.cancel(seatHold)));
+                } catch (TicketReservationException tre) {
+                    //Not in the journal : a replay finds its reservationId taken again
+                }
+            }
+            seatHold.setReservationId(null);
+            dropSeatHold(seatHold);
+            return null;
+        }
+        CustomerQuotas quotas = customerQuotas;
+        if (quotas != null) {
+            quotas.reserve(seatHold.getCustomerEmail(), seatHold.getSeatsHold().size());
+        }
+        return seatHold.getReservationId();
+    }
+
+    /**
+     * Append the reservations to the journal and wait until they are durable. They are pending meanwhile
+     * @return true if they are durable or there is no journal. false if the journal failed : their records may be
+     * on disk all the same, so a CANCEL is journaled before their seats are opened. When the CANCEL can't be
+     * journaled either, the outcome is unknown : the reservations are kept with their seats RESERVED, as a restart
+     * may bring them back, and counted as indeterminate in the metrics
+     */
+    private boolean journalReservations(List<SeatHold> seatHolds) {
+        if (journal == null || seatHolds.isEmpty()) {
+            return true;
+        }
+
+        //Pending before the records are appended, so a snapshot at a later LSN has them
+        pendingReservations.addAll(seatHolds);
+        try {
+            long lsn = 0;
+            for (SeatHold seatHold : seatHolds) {
+                lsn = journal.append(JournalRecord.reserve(seatHold));
+            }
+            journal.sync(lsn);
+            return true;
+        } catch (TicketReservationException tre) {
+            boolean cancelled;
+            try {
+                long lsn = 0;
+                for (SeatHold seatHold : seatHolds) {
+                    lsn = journal.append(JournalRecord.cancel(seatHold));
+                }
+                journal.sync(lsn);
+                cancelled = true;
+            } catch (TicketReservationException cancelFailure) {
+                cancelled = false;
+            }
+
+            for (SeatHold seatHold : seatHolds) {
+                if (cancelled) {
+                    pendingReservations.remove(seatHold);
+                    seatHold.setReservationId(null);
+                    dropSeatHold(seatHold);
+                } else if (publishReservation(seatHold) != null) {
+                    //Found again by its reservationId, or by reserving the hold again
+                    metrics.recordIndeterminateReservation();
+                }
+            }
+            return false;
+        }
     }
 }
@@ -0,0 +1,316 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.utils.Clock;
+import com.walmart.labs.ticketReservation.utils.SystemClock;
+import com.walmart.labs.ticketReservation.utils.Utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Admission control in front of the findAndHoldSeats of a TicketService, for the opening of an on-sale.
+ * Customers join a bounded queue and are let in first come first served, at a steady rate of admissions per
+ * second : a token bucket is refilled every tick, and up to burst tokens are kept for the customers who come
+ * while nobody is waiting. The service then runs at the rate it handles best instead of every caller contending
+ * at once, and a waiting customer knows its position in the queue.
+ * Once the venue has no seat available, customers fail at once with SOLD_OUT and the ones waiting are told so,
+ * rather than waiting for a hold which can only fail. reserveSeats is not queued : those customers got in already.
+ */
+public class WaitingRoom implements TicketService, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 65536;
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final TicketService service;
+
+    private final double admissionsPerNano;
+    private final int burst;
+
+    private final Clock clock;
+
+    //Circular queue of the waiting entries : head is the number of the next entry to admit, tail the next to join
+    private final Entry[] queue;
+    private volatile long head;
+    private long tail;
+
+    //Whole tokens in the bucket, and the fraction of the next one
+    private long tokens;
+    private double credit;
+    private long lastRefill;
+
+    private final ScheduledExecutorService admitter;
+
+    private volatile boolean closed;
+
+    /**
+     * Start admitting customers to the given service
+     * @param service - the service of the on-sale
+     * @param admissionsPerSecond - rate of the customers let in
+     * @throws TicketReservationException - if there is no service or the rate is not positive
+     */
+    public WaitingRoom(TicketService service, int admissionsPerSecond) throws TicketReservationException {
+        this(service, admissionsPerSecond, Math.max(1, admissionsPerSecond / 10), DEFAULT_CAPACITY, new SystemClock());
+    }
+
+    /**
+     * Start admitting customers to the given service
+     * @param service - the service of the on-sale
+     * @param admissionsPerSecond - rate of the customers let in
+     * @param burst - most customers let in at once after nobody waited for a while
+     * @param capacity - most customers waiting, the next ones fail at once with QUEUE_FULL
+     * @param clock - time source of the token bucket
+     * @throws TicketReservationException - if there is no service or clock, or a rate, burst or capacity is not
+     * positive
+     */
+    public WaitingRoom(TicketService service, int admissionsPerSecond, int burst, int capacity, Clock clock)
+            throws TicketReservationException {
+        if (service == null) {
+            throw new TicketReservationException("You need to provide the service.");
+        }
+        if (admissionsPerSecond <= 0 || burst <= 0 || capacity <= 0) {
+            throw new TicketReservationException("The admission rate, burst and capacity need to be positive.");
+        }
+        if (clock == null) {
+            throw new TicketReservationException("You need to provide the clock.");
+        }
+
+        this.service = service;
+        this.admissionsPerNano = admissionsPerSecond / 1e9;
+        this.burst = burst;
+        this.queue = new Entry[capacity];
+        this.clock = clock;
+        this.tokens = burst;
+        this.lastRefill = clock.nanoTime();
+
+        this.admitter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waiting-room-admitter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.admitter.scheduleAtFixedRate(this::admit, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public int numSeatsAvailable() {
+        return service.numSeatsAvailable();
+    }
+
+    /**
+     * Waits for the turn of the customer, then finds and holds the best available seats
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return SeatHold object with the heldseats information, null if the customer was not admitted
+     */
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        //Requests which can only fail don't take a place in the queue
+        if (numSeats <= 0 || !Utils.validate(customerEmail)) {
+            return null;
+        }
+        Entry entry = join();
+        try {
+            entry.await(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return findAndHoldSeats(entry, numSeats, customerEmail);
+    }
+
+    /**
+     * Finds and holds seats for an admitted customer, once per entry
+     * @param entry - the entry of the customer
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return SeatHold object with the heldseats information, null if the entry is not admitted or was used already
+     */
+    public SeatHold findAndHoldSeats(Entry entry, int numSeats, String customerEmail) {
+        if (entry == null || entry.room != this || !entry.use()) {
+            return null;
+        }
+        return service.findAndHoldSeats(numSeats, customerEmail);
+    }
+
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return service.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Join the queue, without waiting
+     * @return the entry of the customer : ADMITTED when a token was left, WAITING in the queue,
+     * or SOLD_OUT, QUEUE_FULL or CLOSED when it could not join
+     */
+    public Entry join() {
+        if (closed) {
+            return new Entry(this, -1, AdmissionStatus.CLOSED);
+        }
+        if (service.numSeatsAvailable() <= 0) {
+            return new Entry(this, -1, AdmissionStatus.SOLD_OUT);
+        }
+        synchronized (this) {
+            if (closed) {
+                return new Entry(this, -1, AdmissionStatus.CLOSED);
+            }
+            if (head == tail && tokens > 0) {
+                tokens--;
+                return new Entry(this, -1, AdmissionStatus.ADMITTED);
+            }
+            if (tail - head == queue.length) {
+                return new Entry(this, -1, AdmissionStatus.QUEUE_FULL);
+            }
+            Entry entry = new Entry(this, tail, AdmissionStatus.WAITING);
+            queue[(int) (tail++ % queue.length)] = entry;
+            return entry;
+        }
+    }
+
+    /**
+     * @return the number of customers waiting
+     */
+    public synchronized int getQueueLength() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * Stop admitting customers. The ones waiting are told CLOSED
+     */
+    public void close() {
+        closed = true;
+        admitter.shutdownNow();
+        drain(AdmissionStatus.CLOSED);
+    }
+
+    /**
+     * Run every tick : refill the bucket and let the next customers in, or tell all of them the venue is sold out
+     */
+    void admit() {
+        if (service.numSeatsAvailable() <= 0) {
+            drain(AdmissionStatus.SOLD_OUT);
+            return;
+        }
+        synchronized (this) {
+            long now = clock.nanoTime();
+            credit += (now - lastRefill) * admissionsPerNano;
+            lastRefill = now;
+            long refill = (long) credit;
+            credit -= refill;
+            tokens += refill;
+
+            //An abandoned entry is skipped without taking a token
+            while (tokens > 0 && head < tail) {
+                if (dequeue().complete(AdmissionStatus.ADMITTED)) {
+                    tokens--;
+                }
+            }
+            tokens = Math.min(tokens, burst);
+        }
+    }
+
+    private synchronized void drain(AdmissionStatus status) {
+        while (head < tail) {
+            dequeue().complete(status);
+        }
+    }
+
+    private Entry dequeue() {
+        int slot = (int) (head % queue.length);
+        Entry entry = queue[slot];
+        queue[slot] = null;
+        head++;
+        return entry;
+    }
+
+    /**
+     * The place of a customer in the WaitingRoom
+     */
+    public static class Entry {
+
+        private final WaitingRoom room;
+
+        //Number of the entry in the queue, -1 if it never waited
+        private final long number;
+
+        private volatile AdmissionStatus status;
+
+        private volatile Thread waiter;
+
+        private boolean used;
+
+        Entry(WaitingRoom room, long number, AdmissionStatus status) {
+            this.room = room;
+            this.number = number;
+            this.status = status;
+        }
+
+        public AdmissionStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the number of customers before this one in the queue, 0 once it is not waiting anymore
+         */
+        public long getPosition() {
+            return (status == AdmissionStatus.WAITING) ? Math.max(0, number - room.head) : 0;
+        }
+
+        /**
+         * Wait for the turn of the customer. A customer who stops waiting gives its place up : the entry is
+         * ABANDONED and will not take an admission from the customers after it
+         * @param timeout - most time to wait, on the clock of the WaitingRoom
+         * @param unit - unit of the timeout
+         * @return the status of the entry, ABANDONED if the timeout elapsed first
+         * @throws InterruptedException - if interrupted while waiting, the entry is ABANDONED then
+         */
+        public AdmissionStatus await(long timeout, TimeUnit unit) throws InterruptedException {
+            //The timeout is on the clock of the room, the thread only parks in real time, a tick at most
+            long deadline = room.clock.nanoTime() + unit.toNanos(timeout);
+            waiter = Thread.currentThread();
+            try {
+                while (status == AdmissionStatus.WAITING) {
+                    long remaining = deadline - room.clock.nanoTime();
+                    if (remaining <= 0) {
+                        complete(AdmissionStatus.ABANDONED);
+                        break;
+                    }
+                    LockSupport.parkNanos(this, Math.min(remaining, TICK_NANOS));
+                    if (Thread.interrupted()) {
+                        complete(AdmissionStatus.ABANDONED);
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                waiter = null;
+            }
+            return status;
+        }
+
+        /**
+         * End the wait of the entry, unless it ended already
+         * @return false if the entry was not waiting anymore, ie abandoned
+         */
+        synchronized boolean complete(AdmissionStatus admissionStatus) {
+            if (status != AdmissionStatus.WAITING) {
+                return false;
+            }
+            status = admissionStatus;
+            Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        //An admitted entry holds seats once
+        synchronized boolean use() {
+            if (status != AdmissionStatus.ADMITTED || used) {
+                return false;
+            }
+            used = true;
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.walmart.labs.ticketReservation.shard;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.service.ReservationService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ShardTransport to shards running in the same JVM : every call is a direct call to the ReservationService of
+ * the shard. Stands in for a network transport in tests and on a single node. A shard can be disconnected to see
+ * how the ShardedTicketService copes with a node which is down.
+ */
+public class LocalShardTransport implements ShardTransport {
+
+    //Map of the shards : Key -> shardId, value -> the service of the shard
+    private final Map<String, ReservationService> shards = new ConcurrentHashMap<>();
+
+    /**
+     * Add a shard, or replace it
+     * @param shardId - the shard identifier
+     * @param service - the service of the shard
+     */
+    public void connect(String shardId, ReservationService service) {
+        shards.put(shardId, service);
+    }
+
+    /**
+     * Remove a shard : the calls to it fail until it is connected again
+     * @param shardId - the shard identifier
+     */
+    public void disconnect(String shardId) {
+        shards.remove(shardId);
+    }
+
+    public int numSeatsAvailable(String shardId) throws TicketReservationException {
+        return shard(shardId).numSeatsAvailable();
+    }
+
+    public SeatHold findAndHoldSeats(String shardId, int numSeats, String customerEmail)
+            throws TicketReservationException {
+        return shard(shardId).findAndHoldSeats(numSeats, customerEmail);
+    }
+
+    public String reserveSeats(String shardId, int seatHoldId, String customerEmail)
+            throws TicketReservationException {
+        return shard(shardId).reserveSeats(seatHoldId, customerEmail);
+    }
+
+    public boolean releaseSeats(String shardId, int seatHoldId, String customerEmail)
+            throws TicketReservationException {
+        return shard(shardId).releaseSeats(seatHoldId, customerEmail) != null;
+    }
+
+    private ReservationService shard(String shardId) throws TicketReservationException {
+        ReservationService service = shards.get(shardId);
+        if (service == null) {
+            throw new TicketReservationException(String.format("Shard %s can't be reached.", shardId));
+        }
+        return service;
+    }
+
+}
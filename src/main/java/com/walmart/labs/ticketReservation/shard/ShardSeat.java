@@ -0,0 +1,47 @@
+package com.walmart.labs.ticketReservation.shard;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+
+/**
+ * Seat of the venue of a shard. The rows and seatNums of the shards start at 0 in every shard, so a seat is
+ * only known with its shard : the id is formed in this format : "shardId-rowNum-seatNum"
+ */
+public class ShardSeat extends Seat {
+
+    private final String shardId;
+    private String id;
+
+    /**
+     * @param shardId - the shard whose venue has the seat
+     * @param seat - the seat held in that shard
+     */
+    public ShardSeat(String shardId, Seat seat) {
+        super(seat.getRow(), seat.getSeatNum());
+        this.shardId = shardId;
+        setStateToHold();
+    }
+
+    public String getShardId() {
+        return shardId;
+    }
+
+    @Override
+    public String getId() {
+        if (id == null) {
+            id = shardId + "-" + super.getId();
+        }
+        return id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * shardId.hashCode() + super.hashCode();
+    }
+
+    //Seats of two shards are never the same, even in the same row and seatNum
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && o instanceof ShardSeat && shardId.equals(((ShardSeat) o).shardId);
+    }
+
+}
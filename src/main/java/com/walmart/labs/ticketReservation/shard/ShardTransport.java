@@ -0,0 +1,45 @@
+package com.walmart.labs.ticketReservation.shard;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+
+/**
+ * Generic Interface for the calls of a ShardedTicketService to its shards, ie the TicketService of every node
+ * A call either gets the answer of the shard or throws when the shard could not be reached.
+ */
+public interface ShardTransport {
+
+    /**
+     * @param shardId - the shard to ask
+     * @return the number of seats of the shard that are neither held nor reserved
+     * @throws TicketReservationException - if the shard can't be reached
+     */
+    int numSeatsAvailable(String shardId) throws TicketReservationException;
+
+    /**
+     * @param shardId - the shard to hold the seats in
+     * @param numSeats - the number of seats to find and hold
+     * @param customerEmail - unique identifier for the customer
+     * @return the SeatHold of the shard, with the seatHoldId of the shard. null if the shard could not hold them
+     * @throws TicketReservationException - if the shard can't be reached
+     */
+    SeatHold findAndHoldSeats(String shardId, int numSeats, String customerEmail) throws TicketReservationException;
+
+    /**
+     * @param shardId - the shard of the hold
+     * @param seatHoldId - the seatHoldId of the shard
+     * @param customerEmail - the email address of the customer to which the seat hold is assigned
+     * @return the reservationId of the shard, null if the shard could not reserve them
+     * @throws TicketReservationException - if the shard can't be reached
+     */
+    String reserveSeats(String shardId, int seatHoldId, String customerEmail) throws TicketReservationException;
+
+    /**
+     * @param shardId - the shard of the hold
+     * @param seatHoldId - the seatHoldId of the shard
+     * @param customerEmail - the email address of the customer to which the seat hold is assigned
+     * @return true if the shard released the seats, false if there was no such hold
+     * @throws TicketReservationException - if the shard can't be reached
+     */
+    boolean releaseSeats(String shardId, int seatHoldId, String customerEmail) throws TicketReservationException;
+}
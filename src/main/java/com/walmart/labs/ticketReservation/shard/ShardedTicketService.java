@@ -0,0 +1,226 @@
+package com.walmart.labs.ticketReservation.shard;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.service.TicketService;
+import com.walmart.labs.ticketReservation.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * TicketService of a single event whose venue is split across several shards, ie its sections spread over nodes
+ * which each run their own TicketService. Adding shards adds throughput to the event.
+ *
+ * The coordinator keeps no seat state : it only keeps an estimate of the seats available on every shard.
+ * A hold goes to the shard with the most seats available by the estimate, and to the next ones when that shard
+ * can't seat the party. The estimate goes down with every hold and is read again from a shard when it could
+ * not hold the seats, so it drifts only by the holds which expired since, and numSeatsAvailable() reads
+ * all the shards again.
+ *
+ * A party is always seated in a single shard : a party larger than the seats available on every shard is not held,
+ * even when the shards together have enough seats. Splitting it would need the coordinator to keep which shard
+ * holds which part of the party, ie seat state.
+ *
+ * Each shard hands out the seatHoldIds of its own residue class, set with setSeatHoldIdClass(index of the shard,
+ * number of shards), so the seatHoldId returned is the one of the shard and a reservation is routed to its shard
+ * without any lookup. A shard hold whose seatHoldId is not of the class of its shard is released.
+ * The reservationId is the shardId, a '-' and the reservationId of the shard. The seats of a SeatHold are
+ * ShardSeats : the seats of the venue of its shard, with the shardId.
+ */
+public class ShardedTicketService implements TicketService {
+
+    private final ShardTransport transport;
+
+    private final String[] shardIds;
+
+    //Seats available on each shard, as last seen
+    private final AtomicIntegerArray availableSeats;
+
+    /**
+     * Initialize the coordinator and read the seats available on every shard
+     * @param transport - how the shards are called
+     * @param shardIds - the shard identifiers, the order of the shards must not change for the life of the event.
+     *                 The shard at index i must hand out the seatHoldIds of the class (i, number of shards)
+     * @throws TicketReservationException - if there is no shard or two shards have the same identifier
+     */
+    public ShardedTicketService(ShardTransport transport, List<String> shardIds) throws TicketReservationException {
+        if (transport == null) {
+            throw new TicketReservationException("You need to provide the transport to the shards.");
+        }
+
+        if (shardIds == null || shardIds.isEmpty()) {
+            throw new TicketReservationException("You need to provide the shards.");
+        }
+
+        Set<String> distinctIds = new HashSet<>(shardIds);
+        if (distinctIds.size() != shardIds.size() || distinctIds.contains(null)) {
+            throw new TicketReservationException("Every shard needs its own identifier.");
+        }
+
+        this.transport = transport;
+        this.shardIds = shardIds.toArray(new String[shardIds.size()]);
+        this.availableSeats = new AtomicIntegerArray(this.shardIds.length);
+        refreshAvailableSeats();
+    }
+
+    public List<String> getShardIds() {
+        List<String> ids = new ArrayList<>(shardIds.length);
+        for (String shardId : shardIds) {
+            ids.add(shardId);
+        }
+        return ids;
+    }
+
+    /**
+     * @param seatHoldId - a seatHoldId returned by findAndHoldSeats()
+     * @return the identifier of the shard which holds the seats
+     */
+    public String getShardId(int seatHoldId) {
+        return (seatHoldId < 0) ? null : shardIds[seatHoldId % shardIds.length];
+    }
+
+    /**
+     * The number of seats neither held nor reserved, read from every shard. A shard which can't be reached counts 0
+     * @return the number of tickets available in the whole venue
+     */
+    public int numSeatsAvailable() {
+        return refreshAvailableSeats();
+    }
+
+    /**
+     * finds and holds the best possible n (numSeats) seats in a single shard : the one with the most seats
+     * available first, then the next ones
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return SeatHold object with the heldseats information, null if no shard could hold them, even when they
+     * could be held across several shards
+     */
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        //Checked here once, not by every shard the hold is tried on
+        if (numSeats <= 0 || !Utils.validate(customerEmail)) {
+            return null;
+        }
+
+        SeatHold seatHold = holdInBestShard(numSeats, customerEmail);
+        if (seatHold == null) {
+            //The estimates may be low because of holds which expired since : look at the shards again
+            refreshAvailableSeats();
+            seatHold = holdInBestShard(numSeats, customerEmail);
+        }
+        return seatHold;
+    }
+
+    /**
+     * reserve seats held by findAndHoldSeats(), in their shard
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return - ReservationId if reservation is confirmed
+     */
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        if (seatHoldId < 0) {
+            return null;
+        }
+
+        int shard = seatHoldId % shardIds.length;
+        try {
+            String reservationId = transport.reserveSeats(shardIds[shard], seatHoldId, customerEmail);
+            return (reservationId == null) ? null : shardIds[shard] + "-" + reservationId;
+        } catch (TicketReservationException tre) {
+            //Shard down : the hold can't be reserved, it will expire on the shard
+            return null;
+        }
+    }
+
+    //Try the shards which can seat the party by the estimates, the most seats available first
+    private SeatHold holdInBestShard(int numSeats, String customerEmail) {
+        boolean[] tried = new boolean[shardIds.length];
+        while (true) {
+            int best = -1;
+            for (int shard = 0; shard < shardIds.length; shard++) {
+                if (!tried[shard] && availableSeats.get(shard) >= numSeats
+                        && (best < 0 || availableSeats.get(shard) > availableSeats.get(best))) {
+                    best = shard;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            tried[best] = true;
+
+            SeatHold seatHold = holdInShard(best, numSeats, customerEmail);
+            if (seatHold != null) {
+                return seatHold;
+            }
+        }
+    }
+
+    private SeatHold holdInShard(int shard, int numSeats, String customerEmail) {
+        SeatHold shardHold;
+        try {
+            shardHold = transport.findAndHoldSeats(shardIds[shard], numSeats, customerEmail);
+        } catch (TicketReservationException tre) {
+            //Shard down : no seats there until it answers again
+            availableSeats.set(shard, 0);
+            return null;
+        }
+
+        if (shardHold == null) {
+            refreshAvailableSeats(shard);
+            return null;
+        }
+
+        if (shardHold.getSeatHoldId() % shardIds.length != shard) {
+            //Shard without its seatHoldId class : the hold could not be routed back, give its seats back
+            releaseInShard(shard, shardHold);
+            return null;
+        }
+
+        availableSeats.addAndGet(shard, -numSeats);
+        List<Seat> seats = new ArrayList<>(shardHold.getSeatsHold().size());
+        for (Seat seat : shardHold.getSeatsHold()) {
+            seats.add(new ShardSeat(shardIds[shard], seat));
+        }
+        try {
+            return new SeatHold(shardHold.getSeatHoldId(), shardHold.getCustomerEmail(), seats);
+        } catch (TicketReservationException tre) {
+            releaseInShard(shard, shardHold);
+            return null;
+        }
+    }
+
+    private void releaseInShard(int shard, SeatHold shardHold) {
+        try {
+            transport.releaseSeats(shardIds[shard], shardHold.getSeatHoldId(), shardHold.getCustomerEmail());
+        } catch (TicketReservationException tre) {
+            //Shard down : the seats stay held on the shard until they expire
+        }
+        refreshAvailableSeats(shard);
+    }
+
+    //Read the seats available of every shard again, and return their sum
+    private int refreshAvailableSeats() {
+        int total = 0;
+        for (int shard = 0; shard < shardIds.length; shard++) {
+            total += refreshAvailableSeats(shard);
+        }
+        return total;
+    }
+
+    private int refreshAvailableSeats(int shard) {
+        int available;
+        try {
+            available = transport.numSeatsAvailable(shardIds[shard]);
+        } catch (TicketReservationException tre) {
+            available = 0;
+        }
+        availableSeats.set(shard, available);
+        return available;
+    }
+
+}
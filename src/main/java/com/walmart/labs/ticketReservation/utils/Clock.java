@@ -0,0 +1,13 @@
+package com.walmart.labs.ticketReservation.utils;
+
+/**
+ * Generic Interface for the time source of the service
+ */
+public interface Clock {
+
+    /**
+     * Monotonic time, only meaningful as the difference between two calls
+     * @return the current time in nanoseconds
+     */
+    long nanoTime();
+}
@@ -7,10 +7,30 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ReservationIdCreator implements IdCreator {
 
-    private static AtomicInteger idCounter = new AtomicInteger(0);
+    //Each creator counts on its own, so services of different events don't share ids
+    private final AtomicInteger idCounter;
 
-    public synchronized String createId() {
-        return String.valueOf(idCounter.getAndIncrement());
+    public ReservationIdCreator() {
+        this(0);
+    }
+
+    /**
+     * @param firstId - the first id to create, ie the one after the ids replayed from a journal
+     */
+    public ReservationIdCreator(int firstId) {
+        this.idCounter = new AtomicInteger(firstId);
+    }
+
+    /**
+     * Lock free, without creating a String
+     * @return the next id
+     */
+    public int nextId() {
+        return idCounter.getAndIncrement();
+    }
+
+    public String createId() {
+        return String.valueOf(nextId());
     }
 
 }
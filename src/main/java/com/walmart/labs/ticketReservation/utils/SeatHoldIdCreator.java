@@ -1,16 +1,74 @@
 package com.walmart.labs.ticketReservation.utils;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation if the generic Id Creator for seatHoldId
+ * The ids can be the ones of a single residue class, ie residue, residue + modulus, residue + 2 * modulus...
+ * so the creators of several services never hand out the same id
  */
 public class SeatHoldIdCreator implements IdCreator {
 
-    private static AtomicInteger idCounter = new AtomicInteger(0);
+    //Each creator counts on its own, so services of different events don't share ids
+    private final AtomicLong idCounter;
+
+    private final int residue;
+    private final int modulus;
+    //Number of ids of the class, from residue to the largest one which is not above Integer.MAX_VALUE
+    private final long slots;
+
+    public SeatHoldIdCreator() {
+        this(0);
+    }
+
+    /**
+     * @param firstId - the first id to create, ie the one after the ids replayed from a journal
+     */
+    public SeatHoldIdCreator(int firstId) {
+        this.residue = 0;
+        this.modulus = 1;
+        this.slots = Integer.MAX_VALUE + 1L;
+        this.idCounter = new AtomicLong(Math.max(0, firstId));
+    }
+
+    /**
+     * @param firstId - the smallest id to create first, ie the one after the ids replayed from a journal
+     * @param residue - the remainder of every id divided by the modulus
+     * @param modulus - the number of residue classes
+     * @throws TicketReservationException - if the residue is not between 0 and modulus - 1
+     */
+    public SeatHoldIdCreator(int firstId, int residue, int modulus) throws TicketReservationException {
+        if (modulus <= 0 || residue < 0 || residue >= modulus) {
+            throw new TicketReservationException("The residue needs to be between 0 and the modulus - 1.");
+        }
 
+        this.residue = residue;
+        this.modulus = modulus;
+        this.slots = (Integer.MAX_VALUE - residue) / modulus + 1;
+        //The first id of the class which is not below firstId, back to the first one past the last
+        long first = (Math.max(0L, firstId) - residue + modulus - 1) / modulus;
+        this.idCounter = new AtomicLong(Math.max(0L, first) % slots);
+    }
+
+    public int getResidue() {
+        return residue;
+    }
+
+    public int getModulus() {
+        return modulus;
+    }
+
+    /**
+     * Lock free, without creating a String
+     * @return the next id of the class, back to residue after the last one so it is never negative
+     */
+    public int nextId() {
+        return (int) (idCounter.getAndIncrement() % slots * modulus + residue);
+    }
 
-    public synchronized String createId() {
-        return String.valueOf(idCounter.getAndIncrement());
+    public String createId() {
+        return String.valueOf(nextId());
     }
 }
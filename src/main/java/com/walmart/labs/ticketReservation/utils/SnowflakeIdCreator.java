@@ -0,0 +1,208 @@
+package com.walmart.labs.ticketReservation.utils;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Id Creator for ids which are unique across the nodes of a cluster and their restarts, without coordination.
+ * An id is a positive long made of the milliseconds since 2020 (41 bits), the node id (10 bits) and a sequence
+ * within the millisecond (12 bits). The last id is kept in one AtomicLong, so creating an id is a single
+ * compare-and-set. More than 4096 ids in a millisecond, or a clock which goes back, borrow the next
+ * milliseconds : ids of a node are always increasing.
+ *
+ * createId() returns the id as a 13 characters confirmation code, ie for reservationIds. The id is scrambled by
+ * a permutation keyed by the secret of the creator before it is written in base 32, so codes don't show the order
+ * or the number of the reservations and can't be found by counting. decode() gives the id of a code back.
+ */
+public class SnowflakeIdCreator implements IdCreator {
+
+    //2020-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1577836800000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    //Crockford's base 32 : no I, L, O or U, so codes read out loud are not mistaken
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int DIGIT_BITS = 5;
+    private static final int CODE_LENGTH = (Long.SIZE + DIGIT_BITS - 1) / DIGIT_BITS;
+
+    private static final long MULTIPLIER_1 = 0xbf58476d1ce4e5b9L;
+    private static final long MULTIPLIER_2 = 0x94d049bb133111ebL;
+    private static final long INVERSE_1 = inverse(MULTIPLIER_1);
+    private static final long INVERSE_2 = inverse(MULTIPLIER_2);
+
+    private final int nodeId;
+
+    private final long key1;
+    private final long key2;
+
+    private final LongSupplier currentTimeMillis;
+
+    //Last id created, without its node id : milliseconds << SEQUENCE_BITS | sequence
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Initialize the creator with a random secret : its codes only decode with it
+     * @param nodeId - unique id of the node in the cluster, from 0 to MAX_NODE_ID
+     * @throws TicketReservationException - if the nodeId is out of range
+     */
+    public SnowflakeIdCreator(int nodeId) throws TicketReservationException {
+        this(nodeId, new SecureRandom().nextLong());
+    }
+
+    /**
+     * Initialize the creator
+     * @param nodeId - unique id of the node in the cluster, from 0 to MAX_NODE_ID
+     * @param secret - key of the codes, the same on every node and restart for the codes to decode everywhere
+     * @throws TicketReservationException - if the nodeId is out of range
+     */
+    public SnowflakeIdCreator(int nodeId, long secret) throws TicketReservationException {
+        this(nodeId, secret, System::currentTimeMillis);
+    }
+
+    SnowflakeIdCreator(int nodeId, long secret, LongSupplier currentTimeMillis) throws TicketReservationException {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new TicketReservationException("The node id needs to be between 0 and " + MAX_NODE_ID + ".");
+        }
+        this.nodeId = nodeId;
+        this.key1 = mix(secret);
+        this.key2 = mix(key1);
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Lock free, without creating any object
+     * @return the next id of this node, greater than all the ones before
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastId.get();
+            long now = (currentTimeMillis.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long next = (now > last) ? now : last + 1;
+            if (lastId.compareAndSet(last, next)) {
+                return ((next & ~SEQUENCE_MASK) << NODE_BITS) | ((long) nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * @return the confirmation code of the next id
+     */
+    public String createId() {
+        return encode(nextId());
+    }
+
+    /**
+     * @param id - an id of nextId()
+     * @return its confirmation code
+     */
+    public String encode(long id) {
+        long bits = scramble(id);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = DIGITS[(int) (bits & (DIGITS.length - 1))];
+            bits >>>= DIGIT_BITS;
+        }
+        return new String(code);
+    }
+
+    /**
+     * @param code - a confirmation code of createId(), upper or lower case
+     * @return its id, -1 if it is not a code. The code of a creator with another secret gives another id
+     */
+    public long decode(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+        long bits = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int digit = digitOf(code.charAt(i));
+            if (digit < 0 || (i == 0 && digit >= 1 << (Long.SIZE - (CODE_LENGTH - 1) * DIGIT_BITS))) {
+                return -1;
+            }
+            bits = (bits << DIGIT_BITS) | digit;
+        }
+        long id = unscramble(bits);
+        return (id < 0) ? -1 : id;
+    }
+
+    /**
+     * @param id - an id of nextId()
+     * @return the time the id was created at, in milliseconds since the epoch
+     */
+    public static long getTimeMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * @param id - an id of nextId()
+     * @return the node which created the id
+     */
+    public static int getNodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    //Bijection of the longs : every step can be undone
+    private long scramble(long id) {
+        long bits = (id ^ key1) * MULTIPLIER_1;
+        bits ^= bits >>> 31;
+        bits = (bits + key2) * MULTIPLIER_2;
+        return bits ^ (bits >>> 29);
+    }
+
+    private long unscramble(long bits) {
+        bits = unshift(bits, 29);
+        bits = bits * INVERSE_2 - key2;
+        bits = unshift(bits, 31);
+        return (bits * INVERSE_1) ^ key1;
+    }
+
+    //Inverse of bits ^ (bits >>> shift)
+    private static long unshift(long bits, int shift) {
+        long value = bits;
+        for (int s = shift; s < Long.SIZE; s += shift) {
+            value ^= bits >>> s;
+        }
+        return value;
+    }
+
+    //Inverse of an odd number modulo 2^64, by Newton's iterations
+    private static long inverse(long odd) {
+        long inverse = odd;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - odd * inverse;
+        }
+        return inverse;
+    }
+
+    //SplitMix64 finalizer, to spread the secret over the two keys
+    private static long mix(long value) {
+        long bits = value + 0x9e3779b97f4a7c15L;
+        bits = (bits ^ (bits >>> 30)) * MULTIPLIER_1;
+        bits = (bits ^ (bits >>> 27)) * MULTIPLIER_2;
+        return bits ^ (bits >>> 31);
+    }
+
+    private static int digitOf(char ch) {
+        char upper = Character.toUpperCase(ch);
+        for (int digit = 0; digit < DIGITS.length; digit++) {
+            if (DIGITS[digit] == upper) {
+                return digit;
+            }
+        }
+        return -1;
+    }
+
+}
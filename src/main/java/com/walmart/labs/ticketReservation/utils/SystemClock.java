@@ -0,0 +1,12 @@
+package com.walmart.labs.ticketReservation.utils;
+
+/**
+ * Implementation of the generic Clock with System.nanoTime
+ */
+public class SystemClock implements Clock {
+
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.walmart.labs.ticketReservation.utils;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -8,17 +7,80 @@ import java.util.regex.Pattern;
  */
 public class Utils {
 
+    /**
+     * The addresses accepted by validate(), it is not used by it
+     */
     public static final Pattern VALID_EMAIL_ADDRESS_REGEX =
             Pattern.compile("^[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
 
+    private static final int MIN_TOP_LEVEL_DOMAIN = 2;
+    private static final int MAX_TOP_LEVEL_DOMAIN = 6;
+
     /**
      * Method to validate a given email
+     * Accepts the same addresses as VALID_EMAIL_ADDRESS_REGEX, in a single pass over the characters and
+     * without creating any object, as it runs on every hold and reservation
      * @param emailStr - emailId of the user
      * @return boolean : true if valid email else false
      */
     public static boolean validate(String emailStr) {
-        Matcher matcher = VALID_EMAIL_ADDRESS_REGEX.matcher(emailStr);
-        return matcher.find();
+        if (emailStr == null) {
+            return false;
+        }
+
+        //'$' also matches before a line terminator which ends the input
+        int end = emailStr.length();
+        if (end >= 2 && emailStr.charAt(end - 2) == '\r' && emailStr.charAt(end - 1) == '\n') {
+            end -= 2;
+        } else if (end >= 1 && isLineTerminator(emailStr.charAt(end - 1))) {
+            end -= 1;
+        }
+
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < end; i++) {
+            char ch = emailStr.charAt(i);
+            if (ch == '@') {
+                if (at >= 0 || i == 0) {
+                    return false;
+                }
+                at = i;
+            } else if (at < 0) {
+                if (!isLetterOrDigit(ch) && ch != '.' && ch != '_' && ch != '%' && ch != '+' && ch != '-') {
+                    return false;
+                }
+            } else if (ch == '.') {
+                lastDot = i;
+            } else if (!isLetterOrDigit(ch) && ch != '-') {
+                return false;
+            }
+        }
+
+        //The domain is a name, a dot and 2 to 6 letters
+        int topLevelDomain = end - lastDot - 1;
+        if (at < 0 || lastDot <= at + 1 || topLevelDomain < MIN_TOP_LEVEL_DOMAIN
+                || topLevelDomain > MAX_TOP_LEVEL_DOMAIN) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < end; i++) {
+            if (!isLetter(emailStr.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Only the ASCII ones, as the CASE_INSENSITIVE pattern
+    private static boolean isLetter(char ch) {
+        return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
+    }
+
+    private static boolean isLetterOrDigit(char ch) {
+        return isLetter(ch) || (ch >= '0' && ch <= '9');
+    }
+
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
     }
 
 
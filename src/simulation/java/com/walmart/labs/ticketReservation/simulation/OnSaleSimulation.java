@@ -0,0 +1,210 @@
+package com.walmart.labs.ticketReservation.simulation;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.metrics.LatencyHistogram;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import com.walmart.labs.ticketReservation.service.TicketService;
+import com.walmart.labs.ticketReservation.service.TicketServiceImpl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * On-sale simulation : the customers of a Workload rush a new venue from many threads through the TicketService,
+ * with the expiry scheduler of the service running. The latencies are measured by the customers, around the
+ * calls to the service.
+ * Once every customer is done, and again once the abandoned holds expired, the seat counts of the venue are
+ * checked : open + held + reserved is the maxOccupancy, and the reserved seats are the ones the customers got
+ * a reservationId for.
+ */
+public class OnSaleSimulation {
+
+    private final Workload workload;
+
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+    private final LatencyHistogram reserveLatency = new LatencyHistogram();
+
+    private final LongAdder holdAttempts = new LongAdder();
+    private final LongAdder holdFailures = new LongAdder();
+    private final LongAdder reserveAttempts = new LongAdder();
+    private final LongAdder reserveFailures = new LongAdder();
+    private final LongAdder customersServed = new LongAdder();
+    private final LongAdder customersTurnedAway = new LongAdder();
+    private final LongAdder abandonedHolds = new LongAdder();
+    private final LongAdder seatsRequested = new LongAdder();
+    private final LongAdder seatsReserved = new LongAdder();
+
+    public OnSaleSimulation(Workload workload) {
+        this.workload = workload;
+    }
+
+    /**
+     * Run the simulation, once per instance
+     * @return the report of the run
+     * @throws TicketReservationException - if the service can't be created
+     * @throws InterruptedException - if interrupted while waiting for the customers
+     */
+    public Map<String, Object> run() throws TicketReservationException, InterruptedException {
+        Venue venue = new Venue(workload.getRows(), workload.getSeatsEachRow(), workload.getConcurrencyMode(),
+                workload.getSeatScoringStrategy());
+        TicketServiceImpl service = new TicketServiceImpl(venue, workload.getHoldTimeoutMillis());
+        service.startExpiryScheduler();
+
+        AtomicInteger nextCustomer = new AtomicInteger();
+        Thread[] threads = new Thread[workload.getThreads()];
+        for (int t = 0; t < threads.length; t++) {
+            //Each thread has its own random, so a seed always gives the same customers to the same thread
+            Random random = new Random(workload.getSeed() + t);
+            threads[t] = new Thread(() -> {
+                for (int customer = nextCustomer.getAndIncrement(); customer < workload.getCustomers();
+                     customer = nextCustomer.getAndIncrement()) {
+                    simulateCustomer(service, customer, random);
+                }
+            }, "customer-" + t);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        Map<String, Object> afterOnSale = inventory(venue, false);
+
+        //Let the abandoned holds expire, for a few seatHoldTimeOut at most
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(4L * workload.getHoldTimeoutMillis() + 1000);
+        while (venue.getHeldSeatCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1 + workload.getHoldTimeoutMillis() / 4);
+        }
+        service.stopExpiryScheduler();
+        service.collectExpiredSeatHolds();
+        Map<String, Object> afterExpiry = inventory(venue, true);
+
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("workload", workload.toMap());
+        report.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.put("customersPerSecond", Math.round(workload.getCustomers() / seconds));
+        report.put("operationsPerSecond", Math.round((holdAttempts.sum() + reserveAttempts.sum()) / seconds));
+
+        Map<String, Object> customers = new LinkedHashMap<>();
+        customers.put("total", workload.getCustomers());
+        customers.put("served", customersServed.sum());
+        customers.put("turnedAway", customersTurnedAway.sum());
+        customers.put("abandonedHolds", abandonedHolds.sum());
+        customers.put("seatsRequested", seatsRequested.sum());
+        report.put("customers", customers);
+
+        report.put("holds", operation(holdAttempts.sum(), holdFailures.sum(), holdLatency));
+        report.put("reservations", operation(reserveAttempts.sum(), reserveFailures.sum(), reserveLatency));
+        report.put("expiredHolds", service.getMetrics().getExpiredHolds());
+
+        Map<String, Object> inventory = new LinkedHashMap<>();
+        inventory.put("maxOccupancy", venue.getMaxOccupancy());
+        inventory.put("seatsReserved", seatsReserved.sum());
+        inventory.put("afterOnSale", afterOnSale);
+        inventory.put("afterExpiry", afterExpiry);
+        report.put("inventory", inventory);
+        report.put("consistent", Boolean.TRUE.equals(afterOnSale.get("consistent"))
+                && Boolean.TRUE.equals(afterExpiry.get("consistent")));
+        return report;
+    }
+
+    private void simulateCustomer(TicketService service, int customer, Random random) {
+        String email = "customer" + customer + "@example.com";
+        int partySize = workload.nextPartySize(random);
+        seatsRequested.add(partySize);
+
+        SeatHold seatHold = null;
+        for (int attempt = 0; attempt < workload.getMaxAttempts() && seatHold == null; attempt++) {
+            if (attempt > 0) {
+                think(random);
+            }
+            long start = System.nanoTime();
+            seatHold = service.findAndHoldSeats(partySize, email);
+            holdLatency.record(System.nanoTime() - start);
+            holdAttempts.increment();
+            if (seatHold == null) {
+                holdFailures.increment();
+            }
+        }
+        if (seatHold == null) {
+            customersTurnedAway.increment();
+            return;
+        }
+
+        if (random.nextDouble() < workload.getAbandonRate()) {
+            //Left to expire
+            abandonedHolds.increment();
+            return;
+        }
+
+        think(random);
+        long start = System.nanoTime();
+        String reservationId = service.reserveSeats(seatHold.getSeatHoldId(), email);
+        reserveLatency.record(System.nanoTime() - start);
+        reserveAttempts.increment();
+        if (reservationId == null) {
+            reserveFailures.increment();
+        } else {
+            customersServed.increment();
+            seatsReserved.add(seatHold.getSeatsHold().size());
+        }
+    }
+
+    private void think(Random random) {
+        if (workload.getMaxThinkMillis() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(random.nextInt(workload.getMaxThinkMillis() + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Seat counts of the venue, read while nothing changes them
+     * @param expired - true once the abandoned holds expired : no seat is held anymore
+     */
+    private Map<String, Object> inventory(Venue venue, boolean expired) {
+        int open = venue.getOpenSeatCount();
+        int held = venue.getHeldSeatCount();
+        int reserved = venue.getReservedSeatCount();
+        boolean consistent = open + held + reserved == venue.getMaxOccupancy() && reserved == seatsReserved.sum()
+                && (!expired || held == 0);
+
+        Map<String, Object> inventory = new LinkedHashMap<>();
+        inventory.put("open", open);
+        inventory.put("held", held);
+        inventory.put("reserved", reserved);
+        inventory.put("consistent", consistent);
+        return inventory;
+    }
+
+    private static Map<String, Object> operation(long attempts, long failures, LatencyHistogram latency) {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        Map<String, Object> latencyNanos = new LinkedHashMap<>();
+        latencyNanos.put("mean", Math.round(snapshot.getMean()));
+        latencyNanos.put("p50", snapshot.getValueAtPercentile(50));
+        latencyNanos.put("p90", snapshot.getValueAtPercentile(90));
+        latencyNanos.put("p99", snapshot.getValueAtPercentile(99));
+        latencyNanos.put("p999", snapshot.getValueAtPercentile(99.9));
+        latencyNanos.put("max", snapshot.getMax());
+
+        Map<String, Object> operation = new LinkedHashMap<>();
+        operation.put("attempts", attempts);
+        operation.put("failures", failures);
+        operation.put("failureRate", (attempts == 0) ? 0.0 : (double) failures / attempts);
+        operation.put("latencyNanos", latencyNanos);
+        return operation;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.walmart.labs.ticketReservation.simulation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Entry point of the simulate Gradle task
+ * Runs an OnSaleSimulation and writes its report as JSON, so the reports of two runs can be compared.
+ * Exits with 1 when the seat counts of the venue were not consistent.
+ */
+public class SimulationRunner {
+
+    /**
+     * @param args - key=value settings of the Workload, ie "customers=50000 threads=16 abandonRate=0.4"
+     * @throws Exception - Exception running the simulation or writing its report
+     */
+    public static void main(String[] args) throws Exception {
+        Workload workload = Workload.parse(args);
+        Map<String, Object> report = new OnSaleSimulation(workload).run();
+
+        String json = toJson(report, new StringBuilder(), "").append('\n').toString();
+        Path path = Paths.get(workload.getReport());
+        write(path, json);
+        System.out.print(json);
+        System.out.println("Report written to " + path.toAbsolutePath());
+
+        if (!Boolean.TRUE.equals(report.get("consistent"))) {
+            System.exit(1);
+        }
+    }
+
+    private static void write(Path path, String json) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Maps, numbers, booleans and strings : all a report holds
+    @SuppressWarnings("unchecked")
+    static StringBuilder toJson(Object value, StringBuilder json, String indent) {
+        if (value instanceof Map) {
+            String inner = indent + "  ";
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                json.append(first ? "\n" : ",\n").append(inner);
+                quote(entry.getKey(), json).append(": ");
+                toJson(entry.getValue(), json, inner);
+                first = false;
+            }
+            return json.append('\n').append(indent).append('}');
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return json.append(value);
+        }
+        return (value == null) ? json.append("null") : quote(value.toString(), json);
+    }
+
+    private static StringBuilder quote(String text, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < ' ') {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+        return json.append('"');
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.walmart.labs.ticketReservation.simulation;
+
+import com.walmart.labs.ticketReservation.model.venue.ConcurrencyMode;
+import com.walmart.labs.ticketReservation.model.venue.SeatScoringStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Workload of an on-sale simulation : the venue, the customers and what they do.
+ * Every customer holds a party of seats, retries a few times when the hold fails, then either abandons the hold,
+ * which leaves it to expire, or reserves it after some think time.
+ * Built from key=value arguments, ie "customers=50000 threads=16 abandonRate=0.4", the others keep their default.
+ */
+public class Workload {
+
+    private int customers = 20000;
+    private int threads = 8;
+    private int rows = 100;
+    private int seatsEachRow = 250;
+    private String partySizes = "1:15,2:40,3:10,4:25,5:4,6:4,8:2";
+    private double abandonRate = 0.25;
+    private int maxAttempts = 3;
+    private int maxThinkMillis = 2;
+    private int holdTimeoutMillis = 100;
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.ROW_LOCKS;
+    private String seatScoring = "FRONT_LEFT";
+    private long seed = 42;
+    private String report = "build/reports/simulation/report.json";
+
+    //Party size of each weight unit of partySizes
+    private int[] partySizeTable;
+
+    /**
+     * @param args - key=value pairs, see the fields of this class for the keys
+     * @return the workload
+     * @throws IllegalArgumentException - if a key is unknown or a value is not valid
+     */
+    public static Workload parse(String[] args) {
+        Workload workload = new Workload();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value : " + arg);
+            }
+            workload.set(arg.substring(0, equals).trim(), arg.substring(equals + 1).trim());
+        }
+        workload.partySizeTable = parsePartySizes(workload.partySizes);
+        workload.getSeatScoringStrategy();
+        if (workload.customers <= 0 || workload.threads <= 0 || workload.rows <= 0 || workload.seatsEachRow <= 0
+                || workload.maxAttempts <= 0 || workload.abandonRate < 0 || workload.abandonRate > 1) {
+            throw new IllegalArgumentException("Invalid workload : " + workload.toMap());
+        }
+        return workload;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+            case "customers":
+                customers = Integer.parseInt(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "rows":
+                rows = Integer.parseInt(value);
+                break;
+            case "seatsEachRow":
+                seatsEachRow = Integer.parseInt(value);
+                break;
+            case "partySizes":
+                partySizes = value;
+                break;
+            case "abandonRate":
+                abandonRate = Double.parseDouble(value);
+                break;
+            case "maxAttempts":
+                maxAttempts = Integer.parseInt(value);
+                break;
+            case "maxThinkMillis":
+                maxThinkMillis = Integer.parseInt(value);
+                break;
+            case "holdTimeoutMillis":
+                holdTimeoutMillis = Integer.parseInt(value);
+                break;
+            case "concurrencyMode":
+                concurrencyMode = ConcurrencyMode.valueOf(value);
+                break;
+            case "seatScoring":
+                seatScoring = value;
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "report":
+                report = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload key : " + key);
+        }
+    }
+
+    //"1:15,2:40" : parties of 1 seat 15 times out of 55, parties of 2 seats 40 times out of 55
+    private static int[] parsePartySizes(String partySizes) {
+        String[] entries = partySizes.split(",");
+        int[] sizes = new int[entries.length];
+        int[] weights = new int[entries.length];
+        int totalWeight = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] entry = entries[i].split(":");
+            sizes[i] = Integer.parseInt(entry[0].trim());
+            weights[i] = (entry.length > 1) ? Integer.parseInt(entry[1].trim()) : 1;
+            if (sizes[i] <= 0 || weights[i] < 0) {
+                throw new IllegalArgumentException("Invalid party sizes : " + partySizes);
+            }
+            totalWeight += weights[i];
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("Invalid party sizes : " + partySizes);
+        }
+
+        int[] table = new int[totalWeight];
+        int next = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            for (int w = 0; w < weights[i]; w++) {
+                table[next++] = sizes[i];
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param random - the random of the calling thread
+     * @return the party size of a customer
+     */
+    int nextPartySize(Random random) {
+        return partySizeTable[random.nextInt(partySizeTable.length)];
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsEachRow() {
+        return seatsEachRow;
+    }
+
+    public double getAbandonRate() {
+        return abandonRate;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getMaxThinkMillis() {
+        return maxThinkMillis;
+    }
+
+    public int getHoldTimeoutMillis() {
+        return holdTimeoutMillis;
+    }
+
+    public ConcurrencyMode getConcurrencyMode() {
+        return concurrencyMode;
+    }
+
+    /**
+     * @return the SeatScoringStrategy named by seatScoring, FRONT_LEFT or CENTER_STAGE
+     */
+    public SeatScoringStrategy getSeatScoringStrategy() {
+        switch (seatScoring) {
+            case "FRONT_LEFT":
+                return SeatScoringStrategy.FRONT_LEFT;
+            case "CENTER_STAGE":
+                return SeatScoringStrategy.CENTER_STAGE;
+            default:
+                throw new IllegalArgumentException("Unknown seat scoring : " + seatScoring);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    /**
+     * @return every setting of the workload, in the report
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("customers", customers);
+        settings.put("threads", threads);
+        settings.put("rows", rows);
+        settings.put("seatsEachRow", seatsEachRow);
+        settings.put("partySizes", partySizes);
+        settings.put("abandonRate", abandonRate);
+        settings.put("maxAttempts", maxAttempts);
+        settings.put("maxThinkMillis", maxThinkMillis);
+        settings.put("holdTimeoutMillis", holdTimeoutMillis);
+        settings.put("concurrencyMode", concurrencyMode.name());
+        settings.put("seatScoring", seatScoring);
+        settings.put("seed", seed);
+        return settings;
+    }
+
+}
@@ -0,0 +1,477 @@
+package com.walmart.labs.ticketReservation.journal;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Section;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import com.walmart.labs.ticketReservation.service.TicketServiceImpl;
+import com.walmart.labs.ticketReservation.utils.SnowflakeIdCreator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class FileJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void serviceRecoversFromJournal() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("venue.journal");
+        String email = "anupam.gupta@gmail.com";
+        final AtomicLong now = new AtomicLong();
+
+        FileJournal journal = new FileJournal(path);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, now::get, journal);
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email);
+        SeatHold seatHold2 = service.findAndHoldSeats(4, email);
+        String reservationId = service.reserveSeats(seatHold2.getSeatHoldId(), email);
+        service.findAndHoldSeats(2, email);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        SeatHold seatHold4 = service.findAndHoldSeats(5, email);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        Assert.assertEquals(2, service.collectExpiredSeatHolds());
+        journal.close();
+
+        //Restart : only the reservation and the last hold are left
+        Venue venue = new Venue(5, 5);
+        journal = new FileJournal(path);
+        service = new TicketServiceImpl(venue, 1000, now::get, journal);
+        Assert.assertEquals(4, venue.getReservedSeatCount());
+        Assert.assertEquals(5, venue.getHeldSeatCount());
+        Assert.assertEquals(16, service.numSeatsAvailable());
+        Assert.assertNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+
+        //The ids go on after the replayed ones
+        SeatHold seatHold5 = service.findAndHoldSeats(1, email);
+        Assert.assertTrue(seatHold5.getSeatHoldId() > seatHold4.getSeatHoldId());
+        String reservationId2 = service.reserveSeats(seatHold4.getSeatHoldId(), email);
+        Assert.assertNotNull(reservationId2);
+        Assert.assertNotEquals(reservationId, reservationId2);
+        Assert.assertEquals(9, venue.getReservedSeatCount());
+        journal.close();
+
+        venue = new Venue(5, 5);
+        journal = new FileJournal(path);
+        new TicketServiceImpl(venue, 1000, now::get, journal);
+        Assert.assertEquals(9, venue.getReservedSeatCount());
+        Assert.assertEquals(1, venue.getHeldSeatCount());
+        journal.close();
+    }
+
+    @Test
+    public void serviceRecoversFromSnapshot() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("venue.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("venue.snapshot");
+        String email = "anupam.gupta@gmail.com";
+        final AtomicLong now = new AtomicLong();
+
+        FileJournal journal = new FileJournal(journalPath);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, now::get, journal, snapshotPath);
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email);
+        SeatHold seatHold2 = service.findAndHoldSeats(4, email);
+        String reservationId = service.reserveSeats(seatHold2.getSeatHoldId(), email);
+        SeatHold seatHold3 = service.findAndHoldSeats(2, email);
+        service.takeSnapshot();
+
+        //After the snapshot : a hold of the snapshot is reserved, another one expires, a new one is held
+        service.reserveSeats(seatHold1.getSeatHoldId(), email);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        SeatHold seatHold4 = service.findAndHoldSeats(5, email);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        Assert.assertEquals(1, service.collectExpiredSeatHolds());
+        journal.close();
+
+        Venue venue = new Venue(5, 5);
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(venue, 1000, now::get, journal, snapshotPath);
+        Assert.assertEquals(7, venue.getReservedSeatCount());
+        Assert.assertEquals(5, venue.getHeldSeatCount());
+        Assert.assertEquals(13, service.numSeatsAvailable());
+        Assert.assertNull(service.reserveSeats(seatHold3.getSeatHoldId(), email));
+
+        //The ids go on after the ones of the snapshot and of the journal
+        SeatHold seatHold5 = service.findAndHoldSeats(1, email);
+        Assert.assertTrue(seatHold5.getSeatHoldId() > seatHold4.getSeatHoldId());
+        String reservationId2 = service.reserveSeats(seatHold4.getSeatHoldId(), email);
+        Assert.assertNotEquals(reservationId, reservationId2);
+        service.takeSnapshot();
+        Assert.assertNotNull(service.cancelReservation(reservationId, email));
+        journal.close();
+
+        //Only the cancellation after the last snapshot
+        venue = new Venue(5, 5);
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(venue, 1000, now::get, journal, snapshotPath);
+        Assert.assertEquals(8, venue.getReservedSeatCount());
+        Assert.assertEquals(1, venue.getHeldSeatCount());
+        Assert.assertNull(service.findReservation(reservationId));
+        Assert.assertEquals(2, service.findReservations(email).size());
+        journal.close();
+    }
+
+    @Test
+    public void sectionedVenueRecoversFromSnapshot() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("sections.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("sections.snapshot");
+        String email = "anupam.gupta@gmail.com";
+
+        FileJournal journal = new FileJournal(journalPath);
+        TicketServiceImpl service = new TicketServiceImpl(sectionedVenue(), 1000, null, journal, snapshotPath);
+        SeatHold seatHold1 = service.findAndHoldSeats("balcony", 6, email);
+        service.reserveSeats(seatHold1.getSeatHoldId(), email);
+        service.findAndHoldSeats("floor", 3, email);
+        service.takeSnapshot();
+        service.findAndHoldSeats("balcony", 2, email);
+        journal.close();
+
+        Venue venue = sectionedVenue();
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(venue, 1000, null, journal, snapshotPath);
+        Assert.assertEquals(6, venue.getSection("balcony").getReservedSeatCount());
+        Assert.assertEquals(2, venue.getSection("balcony").getHeldSeatCount());
+        Assert.assertEquals(3, venue.getSection("floor").getHeldSeatCount());
+        Assert.assertEquals(8, service.numSeatsAvailable("balcony"));
+        journal.close();
+    }
+
+    @Test
+    public void confirmationCodesAreReplayed() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("codes.journal");
+        String email = "anupam.gupta@gmail.com";
+
+        FileJournal journal = new FileJournal(path);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal);
+        Assert.assertEquals("0", service.reserveSeats(service.findAndHoldSeats(2, email).getSeatHoldId(), email));
+        SnowflakeIdCreator idCreator = new SnowflakeIdCreator(7, 42L);
+        service.setReservationIdCreator(idCreator);
+        String code = service.reserveSeats(service.findAndHoldSeats(3, email).getSeatHoldId(), email);
+        Assert.assertEquals(7, SnowflakeIdCreator.getNodeId(idCreator.decode(code)));
+        journal.close();
+
+        //The codes are not counted by the ReservationIdCreator of the recovered service
+        journal = new FileJournal(path);
+        service = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal);
+        Assert.assertEquals(3, service.findReservation(code).getSeatsHold().size());
+        Assert.assertEquals("1", service.reserveSeats(service.findAndHoldSeats(1, email).getSeatHoldId(), email));
+        journal.close();
+    }
+
+    @Test
+    public void wrappedSeatHoldIdIsNotReservedAgain() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("wrap.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("wrap.snapshot");
+        String email = "anupam.gupta@gmail.com";
+        final AtomicLong now = new AtomicLong();
+
+        FileJournal journal = new FileJournal(journalPath);
+        Venue venue = new Venue(5, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue, 1000, now::get, journal, snapshotPath);
+        SeatHold seatHold = service.findAndHoldSeats(2, email);
+        Assert.assertEquals(0, seatHold.getSeatHoldId());
+        String reservationId = service.reserveSeats(0, email);
+
+        //A snapshot taken when the seatHoldIds are about to wrap
+        VenueSnapshot.of(journal.getLastLsn(), Integer.MAX_VALUE, 1, venue, new ArrayList<>(),
+                service.findReservations(email)).write(snapshotPath);
+        journal.close();
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(new Venue(5, 5), 1000, now::get, journal, snapshotPath);
+        Assert.assertEquals(reservationId, service.reserveSeats(0, email));
+
+        Assert.assertEquals(Integer.MAX_VALUE, service.findAndHoldSeats(1, email).getSeatHoldId());
+        Assert.assertEquals(0, service.findAndHoldSeats(1, email).getSeatHoldId());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        Assert.assertEquals(2, service.collectExpiredSeatHolds());
+
+        //The new hold 0 expired : it is not the reservation of the old hold 0
+        Assert.assertNull(service.reserveSeats(0, email));
+        Assert.assertNotNull(service.findReservation(reservationId));
+        journal.close();
+    }
+
+    @Test
+    public void journalIsReplayedAcrossSeatHoldIdWrap() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("replaywrap.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("replaywrap.snapshot");
+        String email = "anupam.gupta@gmail.com";
+
+        FileJournal journal = new FileJournal(journalPath);
+        Venue venue = new Venue(5, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue, 60000, null, journal, snapshotPath);
+        String oldReservationId = service.reserveSeats(service.findAndHoldSeats(2, email).getSeatHoldId(), email);
+        VenueSnapshot.of(journal.getLastLsn(), Integer.MAX_VALUE, 1, venue, new ArrayList<>(),
+                service.findReservations(email)).write(snapshotPath);
+        journal.close();
+
+        //After the wrap : a live hold, a reservation of the reused seatHoldId 0, and the old one cancelled
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(new Venue(5, 5), 60000, null, journal, snapshotPath);
+        SeatHold lastHold = service.findAndHoldSeats(3, email);
+        Assert.assertEquals(Integer.MAX_VALUE, lastHold.getSeatHoldId());
+        SeatHold reusedHold = service.findAndHoldSeats(4, email);
+        Assert.assertEquals(0, reusedHold.getSeatHoldId());
+        String reservationId = service.reserveSeats(0, email);
+        Assert.assertNotNull(service.cancelReservation(oldReservationId, email));
+        journal.close();
+
+        Venue recoveredVenue = new Venue(5, 5);
+        journal = new FileJournal(journalPath);
+        service = new TicketServiceImpl(recoveredVenue, 60000, null, journal, snapshotPath);
+        Assert.assertNull(service.findReservation(oldReservationId));
+        Assert.assertEquals(reusedHold.getSeatsHold(), service.findReservation(reservationId).getSeatsHold());
+        Assert.assertEquals(4, recoveredVenue.getReservedSeatCount());
+        Assert.assertEquals(3, recoveredVenue.getHeldSeatCount());
+        Assert.assertEquals(reservationId, service.reserveSeats(0, email));
+        Assert.assertNotNull(service.reserveSeats(Integer.MAX_VALUE, email));
+
+        //The ids go on after the last one handed out, not after the largest one
+        Assert.assertEquals(1, service.findAndHoldSeats(1, email).getSeatHoldId());
+        journal.close();
+    }
+
+    @Test
+    public void replayedHoldWithoutSeatsIsNotReserved() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("empty.journal");
+        String email = "anupam.gupta@gmail.com";
+        FileJournal journal = new FileJournal(path);
+        journal.replay(record -> { });
+        journal.sync(journal.append(JournalRecord.hold(new SeatHold(0, email, new ArrayList<>()))));
+        journal.close();
+
+        //The reservation fails without throwing, and is counted
+        journal = new FileJournal(path);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal);
+        Assert.assertNull(service.reserveSeats(0, email));
+        Assert.assertEquals(1, service.getMetrics().getReserveFailures());
+        Assert.assertEquals(25, service.numSeatsAvailable());
+        journal.close();
+    }
+
+    @Test
+    public void reservationIsPublishedOnceDurable() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("publish.journal");
+        String email = "anupam.gupta@gmail.com";
+        AtomicReference<TicketServiceImpl> service = new AtomicReference<>();
+        List<String> repeated = new ArrayList<>();
+        Journal journal = new SyncHookJournal(new FileJournal(path), () -> {
+            //A checkout retried while the first one waits for the disk, which then fails
+            repeated.add(service.get().reserveSeats(0, email));
+            throw new TicketReservationException("The disk is gone.");
+        });
+        service.set(new TicketServiceImpl(new Venue(5, 5), 1000, null, journal));
+
+        Assert.assertEquals(0, service.get().findAndHoldSeats(2, email).getSeatHoldId());
+        Assert.assertNull(service.get().reserveSeats(0, email));
+        Assert.assertEquals(Collections.singletonList((String) null), repeated);
+        Assert.assertTrue(service.get().findReservations(email).isEmpty());
+        Assert.assertEquals(25, service.get().numSeatsAvailable());
+        journal.close();
+
+        //The reserve record made it to the disk : the cancel record after it keeps the reservation failed
+        journal = new FileJournal(path);
+        TicketServiceImpl recovered = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal);
+        Assert.assertTrue(recovered.findReservations(email).isEmpty());
+        Assert.assertEquals(25, recovered.numSeatsAvailable());
+        journal.close();
+    }
+
+    @Test
+    public void reservationOfFailedJournalIsKept() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("failed.journal");
+        String email = "anupam.gupta@gmail.com";
+        FileJournal fileJournal = new FileJournal(path);
+        //The journal fails for good after the reserve record is written
+        Journal journal = new SyncHookJournal(fileJournal, () -> {
+            fileJournal.close();
+            throw new TicketReservationException("The disk is gone.");
+        });
+        Venue venue = new Venue(5, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue, 1000, null, journal);
+
+        SeatHold seatHold = service.findAndHoldSeats(2, email);
+        Assert.assertNull(service.reserveSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertEquals(1, service.getMetrics().getIndeterminateReservations());
+        Assert.assertEquals(2, venue.getReservedSeatCount());
+        String reservationId = service.reserveSeats(seatHold.getSeatHoldId(), email);
+        Assert.assertNotNull(reservationId);
+
+        //The restart brings it back, its seats were never sold again
+        journal = new FileJournal(path);
+        TicketServiceImpl recovered = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal);
+        Assert.assertEquals(2, recovered.findReservation(reservationId).getSeatsHold().size());
+        Assert.assertEquals(23, recovered.numSeatsAvailable());
+        journal.close();
+    }
+
+    @Test
+    public void snapshotSeesPendingReservations() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("pending.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("pending.snapshot");
+        String email = "anupam.gupta@gmail.com";
+        AtomicReference<TicketServiceImpl> service = new AtomicReference<>();
+        //The snapshot is taken after the reserve record is appended, before it is durable
+        Journal journal = new SyncHookJournal(new FileJournal(journalPath), () -> service.get().takeSnapshot());
+        service.set(new TicketServiceImpl(new Venue(5, 5), 1000, null, journal, snapshotPath));
+        String reservationId = service.get().reserveSeats(service.get().findAndHoldSeats(3, email).getSeatHoldId(),
+                email);
+        Assert.assertNotNull(reservationId);
+        journal.close();
+
+        Venue venue = new Venue(5, 5);
+        journal = new FileJournal(journalPath);
+        TicketServiceImpl recovered = new TicketServiceImpl(venue, 1000, null, journal, snapshotPath);
+        Assert.assertEquals(3, recovered.findReservation(reservationId).getSeatsHold().size());
+        Assert.assertEquals(3, venue.getReservedSeatCount());
+        journal.close();
+    }
+
+    @Test
+    public void snapshotIsTakenOnDurableJournal() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("durable.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("durable.snapshot");
+        String email = "anupam.gupta@gmail.com";
+        SyncHookJournal journal = new SyncHookJournal(new FileJournal(journalPath), null);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal, snapshotPath);
+        service.reserveSeats(service.findAndHoldSeats(3, email).getSeatHoldId(), email);
+        SeatHold seatHold = service.findAndHoldSeats(2, email);
+        service.takeSnapshot();
+        service.findAndHoldSeats(4, email);
+        journal.close();
+
+        //A crash loses everything after the last sync : the records of the snapshot are not part of it
+        Assert.assertEquals(VenueSnapshot.read(snapshotPath).getLsn(), journal.getSyncedLsn());
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(journal.getSyncedLsn());
+        }
+
+        Venue venue = new Venue(5, 5);
+        FileJournal recovered = new FileJournal(journalPath);
+        service = new TicketServiceImpl(venue, 1000, null, recovered, snapshotPath);
+        Assert.assertEquals(3, venue.getReservedSeatCount());
+        Assert.assertEquals(2, venue.getHeldSeatCount());
+        Assert.assertNotNull(service.reserveSeats(seatHold.getSeatHoldId(), email));
+        recovered.close();
+    }
+
+    //Journal which runs a hook before the sync of every reserve record, and keeps the last LSN synced
+    private static class SyncHookJournal implements Journal {
+
+        private final Journal journal;
+        private final SyncHook hook;
+        private long reserveLsn;
+        private long syncedLsn;
+
+        SyncHookJournal(Journal journal, SyncHook hook) {
+            this.journal = journal;
+            this.hook = hook;
+        }
+
+        public void replay(long fromLsn, Consumer<JournalRecord> handler) throws TicketReservationException {
+            journal.replay(fromLsn, handler);
+        }
+
+        public long append(JournalRecord record) throws TicketReservationException {
+            long lsn = journal.append(record);
+            if (record.getType() == JournalRecord.Type.RESERVE) {
+                reserveLsn = lsn;
+            }
+            return lsn;
+        }
+
+        public long getLastLsn() {
+            return journal.getLastLsn();
+        }
+
+        public void sync(long lsn) throws TicketReservationException {
+            if (hook != null && lsn == reserveLsn) {
+                //Once for each record, the hook may sync again
+                reserveLsn = -1;
+                hook.run();
+            }
+            journal.sync(lsn);
+            syncedLsn = Math.max(syncedLsn, lsn);
+        }
+
+        long getSyncedLsn() {
+            return syncedLsn;
+        }
+
+        public void close() throws TicketReservationException {
+            journal.close();
+        }
+    }
+
+    private interface SyncHook {
+        void run() throws TicketReservationException;
+    }
+
+    private static Venue sectionedVenue() throws TicketReservationException {
+        return new Venue(Arrays.asList(new Section("floor", 2, 3), new Section("balcony", 2, 8)), null, null);
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void snapshotOfAnotherVenue() throws Exception {
+        Path journalPath = folder.getRoot().toPath().resolve("other.journal");
+        Path snapshotPath = folder.getRoot().toPath().resolve("other.snapshot");
+        FileJournal journal = new FileJournal(journalPath);
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(5, 5), 1000, null, journal, snapshotPath);
+        service.findAndHoldSeats(3, "anupam.gupta@gmail.com");
+        service.takeSnapshot();
+        journal.close();
+
+        new TicketServiceImpl(new Venue(4, 5), 1000, null, new FileJournal(journalPath), snapshotPath);
+    }
+
+    @Test
+    public void replayStopsAtTornRecord() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("torn.journal");
+        FileJournal journal = new FileJournal(path);
+        journal.replay(record -> { });
+        journal.append(JournalRecord.release(1));
+        long lsn = journal.append(JournalRecord.hold(new SeatHold(2, "abcd@gmail.com", new ArrayList<>())));
+        journal.sync(lsn);
+        journal.close();
+        Assert.assertEquals(lsn, Files.size(path));
+
+        //Half of a record, as a crash in the middle of a write leaves it
+        Files.write(path, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<JournalRecord> records = replay(path);
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals(JournalRecord.Type.RELEASE, records.get(0).getType());
+        Assert.assertEquals("abcd@gmail.com", records.get(1).getCustomerEmail());
+        Assert.assertEquals(lsn, Files.size(path));
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void appendAfterClose() throws TicketReservationException {
+        FileJournal journal = new FileJournal(folder.getRoot().toPath().resolve("closed.journal"));
+        journal.close();
+        journal.append(JournalRecord.release(1));
+    }
+
+    private static List<JournalRecord> replay(Path path) throws TicketReservationException, IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        FileJournal journal = new FileJournal(path);
+        journal.replay(records::add);
+        journal.close();
+        return records;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.walmart.labs.ticketReservation.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverAllValues() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket <= LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            //Buckets are contiguous and every value falls in its own bucket
+            Assert.assertEquals(bucket, LatencyHistogram.bucketOf(previousHighest + 1));
+            Assert.assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            previousHighest = highest;
+        }
+        Assert.assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(1000000, snapshot.getMax());
+        Assert.assertEquals(500500.0, snapshot.getMean(), 0.001);
+
+        //Within the 12.5% precision of the buckets, and never below the exact value
+        long p50 = snapshot.getValueAtPercentile(50);
+        long p99 = snapshot.getValueAtPercentile(99);
+        Assert.assertTrue(p50 >= 500000 && p50 <= 562500);
+        Assert.assertTrue(p99 >= 990000 && p99 <= 1000000);
+        Assert.assertEquals(1000000, snapshot.getValueAtPercentile(100));
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.walmart.labs.ticketReservation.model.venue;
+
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class AvailabilityPublisherTest {
+
+
+    @Test
+    public void snapshotsAndDeltas() throws Exception {
+
+        Section floor = new Section("floor", 2, 4);
+        Section balcony = new Section("balcony", 3, 70);
+        Venue venue1 = new Venue(Arrays.asList(floor, balcony), ConcurrencyMode.ROW_LOCKS, null);
+        AvailabilityPublisher publisher1 = new AvailabilityPublisher(venue1);
+
+        // First snapshot has every seat open
+        AvailabilitySnapshot snapshot1 = publisher1.getSnapshot();
+        Assert.assertEquals(1, snapshot1.getVersion());
+        Assert.assertEquals(5, snapshot1.getNumberOfRows());
+        Assert.assertEquals(70, snapshot1.getNumberOfSeats(4));
+        Assert.assertEquals(218, snapshot1.getOpenSeatCount());
+        Assert.assertTrue(snapshot1.isOpen(4, 69));
+        Assert.assertFalse(snapshot1.isOpen(0, 4));
+        Assert.assertEquals(0xfL, snapshot1.getOpenSeats(1)[0]);
+        Assert.assertEquals(0x3fL, snapshot1.getOpenSeats(2)[1]);
+
+        // Nothing changed : no new version
+        Assert.assertSame(snapshot1, publisher1.publish());
+
+        // Holds are only seen once published
+        List<Seat> seats1 = venue1.holdBestSeats("balcony", 66);
+        Assert.assertTrue(snapshot1.isOpen(2, 0));
+        AvailabilitySnapshot snapshot2 = publisher1.publish();
+        Assert.assertEquals(2, snapshot2.getVersion());
+        Assert.assertEquals(152, snapshot2.getOpenSeatCount());
+        Assert.assertFalse(snapshot2.isOpen(2, 65));
+        Assert.assertTrue(snapshot2.isOpen(2, 66));
+        Assert.assertEquals(2, snapshot2.getRowVersion(2));
+        Assert.assertEquals(1, snapshot2.getRowVersion(3));
+
+        // Delta only has the changed rows
+        venue1.processSeat(venue1.getSeat(0, 1), SeatState.RESERVED);
+        venue1.processSeats(seats1, SeatState.OPEN);
+        AvailabilitySnapshot snapshot3 = publisher1.publish();
+        AvailabilitySnapshot.Delta delta1 = publisher1.getDelta(2);
+        Assert.assertEquals(2, delta1.getFromVersion());
+        Assert.assertEquals(3, delta1.getVersion());
+        Assert.assertArrayEquals(new int[]{0, 2}, delta1.getRows());
+        Assert.assertArrayEquals(new long[]{0xdL}, delta1.getOpenSeats(0));
+        Assert.assertArrayEquals(snapshot3.getOpenSeats(2), delta1.getOpenSeats(2));
+        Assert.assertNull(delta1.getOpenSeats(3));
+
+        // Rows changed in any later version
+        Assert.assertArrayEquals(new int[]{0, 2}, publisher1.getDelta(1).getRows());
+        Assert.assertEquals(0, publisher1.getDelta(3).getRows().length);
+
+        // Unknown version : every row
+        AvailabilitySnapshot.Delta delta2 = publisher1.getDelta(7);
+        Assert.assertEquals(0, delta2.getFromVersion());
+        Assert.assertEquals(5, delta2.getRows().length);
+        Assert.assertEquals(5, publisher1.getDelta(0).getRows().length);
+    }
+
+    @Test
+    public void publishedInTheBackground() throws Exception {
+
+        Venue venue1 = new Venue(10, 10, ConcurrencyMode.LOCK_FREE);
+        AvailabilityPublisher publisher1 = new AvailabilityPublisher(venue1);
+        publisher1.start(1, TimeUnit.MILLISECONDS);
+        try {
+            venue1.holdBestSeats(25);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (publisher1.getSnapshot().getOpenSeatCount() != 75 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(75, publisher1.getSnapshot().getOpenSeatCount());
+            Assert.assertFalse(publisher1.getSnapshot().isOpen(2, 4));
+        } finally {
+            publisher1.stop();
+        }
+    }
+
+}
@@ -1,8 +1,15 @@
 package com.walmart.labs.ticketReservation.model.venue;
 
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.Seat;
+import com.walmart.labs.ticketReservation.model.seat.SeatState;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class VenueTest {
 
 
@@ -63,7 +70,307 @@ public class VenueTest {
 
         // Get seats
         Assert.assertNotNull(venue1.getSeats());
+        Assert.assertEquals(50, venue1.getSeats().size());
+        Assert.assertEquals(venue1.getSeat(45, 7), venue1.getSeats().get(45).get(7));
+
+        // Seats have the id of their own location
+        Assert.assertEquals("45-0", venue1.getSeat(45, 0).getId());
+        Assert.assertEquals("49-49", venue1.getSeat(49, 49).getId());
+
+    }
+
+    @Test
+    public void claimBestOpenSeat() throws Exception {
+
+        Venue venue1 = new Venue(3, 70);
+
+        // Seats know their own location
+        Assert.assertEquals(2, venue1.getSeat(2, 65).getRow());
+        Assert.assertEquals(65, venue1.getSeat(2, 65).getSeatNum());
+
+        // Best seat is the front-left one and it is moved to PROCESSING
+        Seat seat1 = venue1.claimBestOpenSeat();
+        Assert.assertEquals(venue1.getSeat(0, 0), seat1);
+        Assert.assertEquals(SeatState.PROCESSING, seat1.getSeatState());
+        Assert.assertEquals(venue1.getSeat(0, 1), venue1.claimBestOpenSeat());
+
+        // Fill the whole front row and the next row starts
+        for (int c = 2; c < 70; c++) {
+            venue1.processSeat(venue1.getSeat(0, c), SeatState.RESERVED);
+        }
+        Assert.assertEquals(venue1.getSeat(1, 0), venue1.claimBestOpenSeat());
+
+        // A seat freed up in front becomes the best seat again
+        venue1.processSeat(venue1.getSeat(0, 66), SeatState.OPEN);
+        Assert.assertEquals(venue1.getSeat(0, 66), venue1.claimBestOpenSeat());
+
+        // Nothing left to claim
+        while (venue1.getOpenSeatCount() > 0) {
+            Assert.assertNotNull(venue1.claimBestOpenSeat());
+        }
+        Assert.assertNull(venue1.claimBestOpenSeat());
+    }
+
+    @Test
+    public void holdBestBlock() throws Exception {
+
+        Venue venue1 = new Venue(3, 100);
+
+        /**
+         * Row 0 : seats 10 and 80 are reserved, longest open run is 69 (11 - 79)
+         * Row 1 : all open
+         */
+        venue1.processSeat(venue1.getSeat(0, 10), SeatState.RESERVED);
+        venue1.processSeat(venue1.getSeat(0, 80), SeatState.RESERVED);
+
+        // Left most run of the front row
+        List<Seat> block1 = venue1.holdBestBlock(10);
+        Assert.assertEquals(10, block1.size());
+        Assert.assertEquals(venue1.getSeat(0, 0), block1.get(0));
+        Assert.assertEquals(venue1.getSeat(0, 9), block1.get(9));
+
+        // Run which crosses the 64 seat word boundary
+        List<Seat> block2 = venue1.holdBestBlock(60);
+        Assert.assertEquals(venue1.getSeat(0, 11), block2.get(0));
+        Assert.assertEquals(venue1.getSeat(0, 70), block2.get(59));
+
+        // Does not fit in the front row anymore
+        List<Seat> block3 = venue1.holdBestBlock(20);
+        Assert.assertEquals(venue1.getSeat(1, 0), block3.get(0));
+
+        for (Seat seat : block3) {
+            Assert.assertEquals(SeatState.HOLD, seat.getSeatState());
+        }
+        Assert.assertEquals(300 - 2 - 90, venue1.getOpenSeatCount());
+        Assert.assertEquals(90, venue1.getHeldSeatCount());
+        Assert.assertEquals(2, venue1.getReservedSeatCount());
+
+        // Longer than a row or nothing to hold
+        Assert.assertNull(venue1.holdBestBlock(101));
+        Assert.assertNull(venue1.holdBestBlock(0));
+        Assert.assertNull(venue1.holdBestSeats(0));
+        Assert.assertNull(venue1.holdBestSeats(-1));
+        Assert.assertEquals(90, venue1.getHeldSeatCount());
+
+        // Freed seats can be held again as a block
+        venue1.openSelectedSeats(block2);
+        Assert.assertEquals(venue1.getSeat(0, 11), venue1.holdBestBlock(60).get(0));
+    }
+
+    @Test
+    public void reserveHeldSeats() throws Exception {
+
+        Venue venue1 = new Venue(3, 100);
+
+        // Runs across the 32 seat word boundaries and in two rows
+        List<Seat> block1 = venue1.holdBestBlock(70);
+        List<Seat> block2 = venue1.holdBestBlock(40);
+        List<Seat> seats = new ArrayList<>(block1);
+        seats.addAll(block2);
+        Assert.assertTrue(venue1.reserveHeldSeats(seats));
+        for (Seat seat : seats) {
+            Assert.assertEquals(SeatState.RESERVED, seat.getSeatState());
+        }
+        Assert.assertEquals(SeatState.OPEN, venue1.getSeat(0, 70).getSeatState());
+        Assert.assertEquals(0, venue1.getHeldSeatCount());
+        Assert.assertEquals(110, venue1.getReservedSeatCount());
+        Assert.assertEquals(190, venue1.getOpenSeatCount());
+
+        // One seat is not held : none of them is reserved
+        List<Seat> block3 = venue1.holdBestBlock(20);
+        venue1.processSeat(venue1.getSeat(0, 95), SeatState.RESERVED);
+        List<Seat> mixed = new ArrayList<>(block3);
+        mixed.add(venue1.getSeat(0, 95));
+        Assert.assertFalse(venue1.reserveHeldSeats(mixed));
+        for (Seat seat : block3) {
+            Assert.assertEquals(SeatState.HOLD, seat.getSeatState());
+        }
+        Assert.assertEquals(20, venue1.getHeldSeatCount());
+        Assert.assertEquals(111, venue1.getReservedSeatCount());
+    }
+
+    @Test
+    public void seatScoringStrategy() throws Exception {
+
+        Venue venue1 = new Venue(3, 5, ConcurrencyMode.ROW_LOCKS, SeatScoringStrategy.CENTER_STAGE);
+
+        // Middle of the front row first, ties go to the left
+        Assert.assertEquals(venue1.getSeat(0, 2), venue1.claimBestOpenSeat());
+        Assert.assertEquals(venue1.getSeat(0, 1), venue1.claimBestOpenSeat());
+        Assert.assertEquals(venue1.getSeat(0, 3), venue1.claimBestOpenSeat());
+        // The middle of the second row is closer to the stage than the ends of the front row
+        Assert.assertEquals(venue1.getSeat(1, 2), venue1.claimBestOpenSeat());
+
+        // A freed seat is the best seat again
+        venue1.processSeat(venue1.getSeat(0, 2), SeatState.OPEN);
+        Assert.assertEquals(venue1.getSeat(0, 2), venue1.claimBestOpenSeat());
+
+        // The row with the best seat first, and its run with the best seats
+        List<Seat> block1 = venue1.holdBestBlock(2);
+        Assert.assertEquals(Arrays.asList(venue1.getSeat(1, 0), venue1.getSeat(1, 1)), block1);
+        List<Seat> block2 = venue1.holdBestBlock(3);
+        Assert.assertEquals(Arrays.asList(venue1.getSeat(2, 1), venue1.getSeat(2, 2), venue1.getSeat(2, 3)), block2);
+        Assert.assertNull(venue1.holdBestBlock(3));
+
+        // Any strategy : back row first
+        Venue venue2 = new Venue(3, 4, ConcurrencyMode.LOCK_FREE,
+                (row, column, rows, columns) -> (rows - 1 - row) * columns + column);
+        Assert.assertEquals(venue2.getSeat(2, 0), venue2.claimBestOpenSeat());
+        Assert.assertEquals(venue2.getSeat(1, 0), venue2.holdBestBlock(4).get(0));
+        List<Seat> seats = venue2.holdBestSeats(5);
+        Assert.assertEquals(venue2.getSeat(2, 1), seats.get(0));
+        Assert.assertEquals(venue2.getSeat(0, 1), seats.get(4));
+        Assert.assertEquals(2, venue2.getOpenSeatCount());
+        Assert.assertEquals(venue2.getSeat(0, 2), venue2.claimBestOpenSeat());
+        Assert.assertEquals(venue2.getSeat(0, 3), venue2.claimBestOpenSeat());
+        Assert.assertNull(venue2.claimBestOpenSeat());
+    }
+
+    @Test
+    public void sections() throws Exception {
+
+        Section floor = new Section("floor", 2, 4);
+        Section lower = new Section("lower", 3, 6);
+        Section balcony = new Section("balcony", 2, 8);
+        Venue venue1 = new Venue(Arrays.asList(floor, lower, balcony), ConcurrencyMode.ROW_LOCKS, null);
+
+        // Rows are numbered across the sections
+        Assert.assertEquals(7, venue1.getNumberOfRows());
+        Assert.assertEquals(8, venue1.getNumberOfSeatsEachRow());
+        Assert.assertEquals(42, venue1.getMaxOccupancy());
+        Assert.assertNull(venue1.getSeat(1, 4));
+        Assert.assertEquals(6, venue1.getSeats().get(2).size());
+        Assert.assertEquals(13, venue1.getSeatIndex(2, 5));
+        Assert.assertEquals(venue1.getSeat(2, 5), venue1.getSeatByIndex(13));
+        Assert.assertSame(balcony, venue1.getSectionOfRow(5));
+        Assert.assertSame(lower, venue1.getSection("lower"));
+
+        // Holds in a section only use that section
+        List<Seat> seats1 = venue1.holdBestSeats("lower", 4);
+        Assert.assertEquals(venue1.getSeat(2, 0), seats1.get(0));
+        Assert.assertEquals(14, lower.getOpenSeatCount());
+        Assert.assertEquals(4, lower.getHeldSeatCount());
+        Assert.assertEquals(8, floor.getOpenSeatCount());
+        Assert.assertNull(venue1.holdBestSeats("unknown", 1));
+        Assert.assertNull(venue1.holdBestSeats("floor", 9));
+
+        // The first section with a row long enough
+        Assert.assertEquals(venue1.getSeat(3, 0), venue1.holdBestBlock(6).get(0));
+
+        // Too many for a row : split inside the first section with enough seats
+        List<Seat> seats2 = venue1.holdBestSeats(10);
+        for (Seat seat : seats2) {
+            Assert.assertSame(balcony, venue1.getSectionOfRow(seat.getRow()));
+        }
+        Assert.assertEquals(6, balcony.getOpenSeatCount());
+
+        // Across the sections when no section has enough seats
+        List<Seat> seats3 = venue1.holdBestSeats(20);
+        Assert.assertEquals(venue1.getSeat(0, 0), seats3.get(0));
+        Assert.assertEquals(2, venue1.getOpenSeatCount());
+
+        venue1.processSeats(seats2, SeatState.RESERVED);
+        Assert.assertEquals(10, balcony.getReservedSeatCount());
+        Assert.assertEquals(10, venue1.getReservedSeatCount());
+        Assert.assertEquals(30, venue1.getHeldSeatCount());
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void sectionInTwoVenues() throws Exception {
+        Section floor = new Section("floor", 2, 4);
+        new Venue(Collections.singletonList(floor), null, null);
+        new Venue(Collections.singletonList(floor), null, null);
+    }
+
+    @Test
+    public void lockFreeClaims() throws Exception {
+
+        final Venue venue1 = new Venue(10, 100, ConcurrencyMode.LOCK_FREE);
+        final Set<Seat> claimed = Collections.newSetFromMap(new ConcurrentHashMap<Seat, Boolean>());
+        final AtomicInteger duplicates = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final boolean blocks = t % 2 == 0;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    List<Seat> seats = blocks ? venue1.holdBestBlock(7) : Arrays.asList(venue1.claimBestOpenSeat());
+                    while (seats != null && seats.get(0) != null) {
+                        for (Seat seat : seats) {
+                            if (!claimed.add(seat)) duplicates.incrementAndGet();
+                        }
+                        seats = blocks ? venue1.holdBestBlock(7) : Arrays.asList(venue1.claimBestOpenSeat());
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // Every seat is handed out exactly once
+        Assert.assertEquals(0, duplicates.get());
+        Assert.assertEquals(1000, claimed.size());
+        Assert.assertEquals(0, venue1.getOpenSeatCount());
+        Assert.assertNull(venue1.claimBestOpenSeat());
+
+        // Opened seats show up in the free seat index again
+        venue1.processSeat(venue1.getSeat(4, 20), SeatState.OPEN);
+        Assert.assertEquals(1, venue1.getOpenSeatCount());
+        Assert.assertEquals(venue1.getSeat(4, 20), venue1.claimBestOpenSeat());
+    }
+
+    @Test
+    public void lockFreeClaimsSeeSeatsGivenBack() throws Exception {
+
+        // A block claim which loses a seat gives the others back : a seat claim running meanwhile must not miss them
+        for (int round = 0; round < 200; round++) {
+            final Venue venue1 = new Venue(2, 16, ConcurrencyMode.LOCK_FREE);
+            final AtomicInteger claimed = new AtomicInteger();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final boolean blocks = t > 0;
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (blocks) {
+                            List<Seat> block;
+                            while ((block = venue1.holdBestBlock(5)) != null) {
+                                claimed.addAndGet(block.size());
+                            }
+                        } else {
+                            while (venue1.claimBestOpenSeat() != null) {
+                                claimed.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+
+            // The seat claims stop only once every seat is taken
+            Assert.assertEquals(0, venue1.getOpenSeatCount());
+            Assert.assertEquals(32, claimed.get());
+        }
+    }
+
+    @Test
+    public void largeVenue() throws Exception {
+
+        // 1 million seats : only the state storage is allocated up front
+        Venue venue1 = new Venue(1000, 1000);
+        Assert.assertEquals(1000000, venue1.getOpenSeatCount());
 
+        // Every row but the last one is full
+        for (int r = 0; r < 999; r++) {
+            Assert.assertEquals(1000, venue1.holdBestBlock(1000).size());
+        }
+        Assert.assertEquals(venue1.getSeat(999, 0), venue1.claimBestOpenSeat());
+        Assert.assertEquals(venue1.getSeat(999, 1), venue1.holdBestBlock(999).get(0));
+        Assert.assertEquals(0, venue1.getOpenSeatCount());
+        Assert.assertNull(venue1.holdBestBlock(1));
     }
 
 }
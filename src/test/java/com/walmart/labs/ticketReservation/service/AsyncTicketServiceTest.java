@@ -0,0 +1,66 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncTicketServiceTest {
+
+    @Test(expected = TicketReservationException.class)
+    public void asyncServiceNull() throws TicketReservationException {
+        new AsyncTicketServiceImpl(null);
+    }
+
+    @Test
+    public void holdAndReserveAsync() throws Exception {
+        Venue venue1 = new Venue(20, 50);
+        try (AsyncTicketServiceImpl service = new AsyncTicketServiceImpl(new TicketServiceImpl(venue1, 60000))) {
+
+            // Many requests are pending at once, none of the callers block
+            final String email = "anupam.gupta@gmail.com";
+            List<CompletableFuture<String>> reservations = new ArrayList<>();
+            for (int n = 0; n < 300; n++) {
+                reservations.add(service.findAndHoldSeats(1 + n % 4, email).thenCompose(seatHold ->
+                        (seatHold == null) ? CompletableFuture.completedFuture((String) null)
+                                : service.reserveSeats(seatHold.getSeatHoldId(), email)));
+            }
+            CompletableFuture.allOf(reservations.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+            int reserved = 0;
+            for (CompletableFuture<String> reservation : reservations) {
+                if (reservation.get() != null) reserved++;
+            }
+            Assert.assertTrue(reserved > 0);
+            Assert.assertEquals(1000 - venue1.getReservedSeatCount(), service.numSeatsAvailable());
+            Assert.assertEquals(0, venue1.getHeldSeatCount());
+
+            // Failures complete with null like the blocking service
+            Assert.assertNull(service.findAndHoldSeats(2, "not an email").get(5, TimeUnit.SECONDS));
+            Assert.assertNull(service.reserveSeats(-1, email).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void closedServiceFails() throws Exception {
+        AsyncTicketServiceImpl service = new AsyncTicketServiceImpl(new TicketServiceImpl(new Venue(5, 5), 500));
+        SeatHold seatHold = service.findAndHoldSeats(2, "abcd@gmail.com").get(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(seatHold);
+        service.close();
+
+        try {
+            service.reserveSeats(seatHold.getSeatHoldId(), "abcd@gmail.com").get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TicketReservationException);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TicketEngineTest {
+
+    @Test(expected = TicketReservationException.class)
+    public void registerEventTwice() throws TicketReservationException {
+        TicketEngine engine = new TicketEngine();
+        engine.registerEvent("concert", new Venue(5, 5), 500);
+        engine.registerEvent("concert", new Venue(5, 5), 500);
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void registerEventWithoutId() throws TicketReservationException {
+        new TicketEngine().registerEvent(null, new Venue(5, 5), 500);
+    }
+
+    @Test
+    public void eventsAreIsolated() throws TicketReservationException {
+        TicketEngine engine = new TicketEngine();
+        engine.registerEvent("concert", new Venue(5, 5), 500);
+        engine.registerEvent("game", new Venue(10, 10), 500);
+
+        String email = "anupam.gupta@gmail.com";
+        SeatHold concertHold = engine.findAndHoldSeats("concert", 4, email);
+        SeatHold gameHold = engine.findAndHoldSeats("game", 6, email);
+
+        // Each event has its own seats and its own hold ids
+        Assert.assertEquals(21, engine.numSeatsAvailable("concert"));
+        Assert.assertEquals(94, engine.numSeatsAvailable("game"));
+        Assert.assertEquals(concertHold.getSeatHoldId(), gameHold.getSeatHoldId());
+
+        // A hold can only be reserved on its own event
+        String gameReservationId = engine.reserveSeats("game", gameHold.getSeatHoldId(), email);
+        Assert.assertNotNull(gameReservationId);
+        Assert.assertEquals(21, engine.forEvent("concert").numSeatsAvailable());
+        Assert.assertNotNull(engine.reserveSeats("concert", concertHold.getSeatHoldId(), email));
+        Assert.assertEquals(gameReservationId, engine.reserveSeats("game", gameHold.getSeatHoldId(), email));
+
+        // Unknown events
+        Assert.assertEquals(0, engine.numSeatsAvailable("opera"));
+        Assert.assertNull(engine.findAndHoldSeats("opera", 1, email));
+        Assert.assertNull(engine.reserveSeats("opera", 0, email));
+        Assert.assertNull(engine.forEvent("opera"));
+
+        Assert.assertNotNull(engine.removeEvent("concert"));
+        Assert.assertEquals(1, engine.getEventIds().size());
+    }
+
+    @Test
+    public void collectExpiredSeatHoldsOfAllEvents() throws TicketReservationException {
+        final AtomicLong now = new AtomicLong();
+        TicketEngine engine = new TicketEngine(now::get);
+        engine.registerEvent("concert", new Venue(5, 5), 100);
+        engine.registerEvent("game", new Venue(10, 10), 1000);
+
+        String email = "anupam.gupta@gmail.com";
+        engine.findAndHoldSeats("concert", 4, email);
+        engine.findAndHoldSeats("game", 6, email);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertEquals(1, engine.collectExpiredSeatHolds());
+        Assert.assertEquals(25, engine.numSeatsAvailable("concert"));
+        Assert.assertEquals(94, engine.numSeatsAvailable("game"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertEquals(1, engine.collectExpiredSeatHolds());
+        Assert.assertEquals(100, engine.numSeatsAvailable("game"));
+    }
+
+}
@@ -1,12 +1,25 @@
 package com.walmart.labs.ticketReservation.service;
 
 import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.metrics.LatencyHistogram;
+import com.walmart.labs.ticketReservation.metrics.MetricsSink;
+import com.walmart.labs.ticketReservation.metrics.TicketServiceMetrics;
 import com.walmart.labs.ticketReservation.model.seat.Seat;
 import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.ConcurrencyMode;
+import com.walmart.labs.ticketReservation.model.venue.Section;
 import com.walmart.labs.ticketReservation.model.venue.Venue;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class TicketServiceTest {
 
     @Test(expected = TicketReservationException.class)
@@ -59,6 +72,11 @@ public class TicketServiceTest {
         Assert.assertEquals(7, service.numSeatsAvailable());
         service.findAndHoldSeats(6, "mnop@gmail.com");
         Assert.assertEquals(1, service.numSeatsAvailable());
+
+        // A hold of no seat is refused, it could not be reserved
+        Assert.assertNull(service.findAndHoldSeats(0, "abcd@gmail.com"));
+        Assert.assertNull(service.findAndHoldSeats(-1, "abcd@gmail.com"));
+        Assert.assertEquals(1, service.numSeatsAvailable());
     }
 
     @Test
@@ -90,4 +108,443 @@ public class TicketServiceTest {
         Assert.assertEquals(25, venue1.getReservedSeatCount());
     }
 
+    @Test
+    public void reserveSeatsAgain() throws TicketReservationException {
+        Venue venue1 = new Venue(5, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 500);
+
+        String email = "anupam.gupta@gmail.com";
+        SeatHold seatHold = service.findAndHoldSeats(4, email);
+        String reservationId = service.reserveSeats(seatHold.getSeatHoldId(), email);
+        Assert.assertNotNull(reservationId);
+
+        // A retried checkout gets the same reservation, the seats are not reserved twice
+        Assert.assertEquals(reservationId, service.reserveSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertEquals(Collections.singletonList(reservationId),
+                service.reserveSeatsBatch(Collections.singletonList(seatHold.getSeatHoldId()), email));
+        Assert.assertEquals(4, venue1.getReservedSeatCount());
+        Assert.assertEquals(1, service.findReservations(email).size());
+
+        // Not for another customer, nor once cancelled
+        Assert.assertNull(service.reserveSeats(seatHold.getSeatHoldId(), "abcd@gmail.com"));
+        Assert.assertNull(service.reserveSeats(seatHold.getSeatHoldId(), null));
+        Assert.assertNotNull(service.cancelReservation(reservationId, email));
+        Assert.assertNull(service.reserveSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertEquals(25, venue1.getOpenSeatCount());
+    }
+
+    @Test
+    public void releaseSeats() throws TicketReservationException {
+        Venue venue1 = new Venue(2, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 60000);
+
+        String email = "anupam.gupta@gmail.com";
+        SeatHold seatHold = service.findAndHoldSeats(4, email);
+        Assert.assertNull(service.releaseSeats(seatHold.getSeatHoldId(), "abcd@gmail.com"));
+        Assert.assertSame(seatHold, service.releaseSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertEquals(10, venue1.getOpenSeatCount());
+
+        //A released hold can't be reserved nor released again
+        Assert.assertNull(service.releaseSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertNull(service.reserveSeats(seatHold.getSeatHoldId(), email));
+        Assert.assertEquals(10, service.numSeatsAvailable());
+    }
+
+    @Test
+    public void findAndHoldAdjacentSeats() throws TicketReservationException {
+        Venue venue1 = new Venue(3, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 500);
+
+        String email = "anupam.gupta@gmail.com";
+        service.findAndHoldSeats(3, email);
+
+        // Only 2 seats are left in the front row : the party of 4 moves to the next row together
+        SeatHold seatHold = service.findAndHoldSeats(4, email);
+        for (int c = 0; c < 4; c++) {
+            Assert.assertEquals(venue1.getSeat(1, c), seatHold.getSeatsHold().get(c));
+        }
+
+        service.findAndHoldSeats(4, email);
+
+        // No row can fit 3 anymore : the party is split across the best seats
+        SeatHold splitHold = service.findAndHoldSeats(3, email);
+        Assert.assertNotNull(splitHold);
+        Assert.assertEquals(venue1.getSeat(0, 3), splitHold.getSeatsHold().get(0));
+        Assert.assertEquals(venue1.getSeat(0, 4), splitHold.getSeatsHold().get(1));
+        Assert.assertEquals(venue1.getSeat(1, 4), splitHold.getSeatsHold().get(2));
+        Assert.assertEquals(1, service.numSeatsAvailable());
+    }
+
+    @Test
+    public void concurrentHoldsAndReservations() throws Exception {
+        concurrentHoldsAndReservations(ConcurrencyMode.ROW_LOCKS);
+        concurrentHoldsAndReservations(ConcurrencyMode.LOCK_FREE);
+    }
+
+    private void concurrentHoldsAndReservations(ConcurrencyMode concurrencyMode) throws Exception {
+        Venue venue1 = new Venue(40, 25, concurrencyMode);
+        final TicketServiceImpl service = new TicketServiceImpl(venue1, 60000);
+        final List<SeatHold> seatHolds = Collections.synchronizedList(new ArrayList<SeatHold>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int n = 0; n < 400; n++) {
+            final int numSeats = 1 + n % 5;
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    SeatHold seatHold = service.findAndHoldSeats(numSeats, "abcd@gmail.com");
+                    if (seatHold != null) {
+                        seatHolds.add(seatHold);
+                        if (seatHold.getSeatHoldId() % 2 == 0) {
+                            service.reserveSeats(seatHold.getSeatHoldId(), "abcd@gmail.com");
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // No seat is handed out twice and the counters add up
+        Set<Seat> heldSeats = new HashSet<>();
+        for (SeatHold seatHold : seatHolds) {
+            for (Seat seat : seatHold.getSeatsHold()) {
+                Assert.assertTrue(heldSeats.add(seat));
+            }
+        }
+        Assert.assertEquals(1000 - heldSeats.size(), venue1.getOpenSeatCount());
+        Assert.assertEquals(heldSeats.size(), venue1.getHeldSeatCount() + venue1.getReservedSeatCount());
+    }
+
+    @Test
+    public void collectExpiredSeatHolds() throws TicketReservationException {
+        Venue venue1 = new Venue(5, 5);
+        final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(42));
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000, now::get);
+
+        String email = "anupam.gupta@gmail.com";
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email);
+        SeatHold seatHold2 = service.findAndHoldSeats(4, email);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        SeatHold seatHold3 = service.findAndHoldSeats(5, email);
+        Assert.assertNotNull(service.reserveSeats(seatHold2.getSeatHoldId(), email));
+
+        // Nothing is due yet
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        Assert.assertEquals(0, service.collectExpiredSeatHolds());
+        Assert.assertEquals(13, service.numSeatsAvailable());
+
+        // Only the first hold is due : the reserved one is not released
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        Assert.assertEquals(1, service.collectExpiredSeatHolds());
+        Assert.assertEquals(16, service.numSeatsAvailable());
+        Assert.assertEquals(5, venue1.getHeldSeatCount());
+        Assert.assertEquals(4, venue1.getReservedSeatCount());
+        Assert.assertNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+
+        // Long after everything : the last hold is due as well
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        Assert.assertEquals(1, service.collectExpiredSeatHolds());
+        Assert.assertEquals(21, service.numSeatsAvailable());
+        Assert.assertNull(service.reserveSeats(seatHold3.getSeatHoldId(), email));
+    }
+
+    @Test
+    public void expiryWheelReusesItsEntries() throws TicketReservationException {
+        Venue venue1 = new Venue(20, 50);
+        final AtomicLong now = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000, now::get);
+        String email = "anupam.gupta@gmail.com";
+
+        // More holds than the first entries of the wheel, in two rounds which reuse them
+        for (int round = 0; round < 2; round++) {
+            SeatHold released = service.findAndHoldSeats(1, email);
+            for (int i = 1; i < 600; i++) {
+                Assert.assertNotNull(service.findAndHoldSeats(1, email));
+            }
+            Assert.assertNotNull(service.releaseSeats(released.getSeatHoldId(), email));
+            now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+            Assert.assertEquals(599, service.collectExpiredSeatHolds());
+            Assert.assertEquals(1000, service.numSeatsAvailable());
+        }
+    }
+
+    @Test
+    public void expirySchedulerReleasesSeats() throws Exception {
+        Venue venue1 = new Venue(5, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 50);
+        service.startExpiryScheduler();
+        try {
+            service.findAndHoldSeats(10, "abcd@gmail.com");
+            Assert.assertEquals(15, service.numSeatsAvailable());
+
+            long giveUp = System.currentTimeMillis() + 5000;
+            while (service.numSeatsAvailable() < 25 && System.currentTimeMillis() < giveUp) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(25, service.numSeatsAvailable());
+        } finally {
+            service.stopExpiryScheduler();
+        }
+    }
+
+    @Test
+    public void batchHoldsAndReservations() throws TicketReservationException {
+        Venue venue1 = new Venue(4, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 500);
+
+        String email = "anupam.gupta@gmail.com";
+        List<SeatHold> seatHolds = service.findAndHoldSeatsBatch(Arrays.asList(
+                new HoldRequest(4, email),
+                new HoldRequest(3, "not an email"),
+                new HoldRequest(5, "abcd@gmail.com"),
+                new HoldRequest(0, email),
+                new HoldRequest(30, email),
+                new HoldRequest(2, email)));
+
+        // One result for each request, in the order of the batch
+        Assert.assertEquals(6, seatHolds.size());
+        Assert.assertEquals(venue1.getSeat(0, 0), seatHolds.get(0).getSeatsHold().get(0));
+        Assert.assertNull(seatHolds.get(1));
+        Assert.assertEquals(venue1.getSeat(1, 0), seatHolds.get(2).getSeatsHold().get(0));
+        Assert.assertNull(seatHolds.get(3));
+        Assert.assertNull(seatHolds.get(4));
+        Assert.assertEquals(venue1.getSeat(2, 0), seatHolds.get(5).getSeatsHold().get(0));
+        Assert.assertEquals(9, service.numSeatsAvailable());
+
+        // Only the holds of that customer are reserved, a hold repeated in the batch gets the same reservationId
+        List<String> reservationIds = service.reserveSeatsBatch(Arrays.asList(
+                seatHolds.get(0).getSeatHoldId(), seatHolds.get(2).getSeatHoldId(), seatHolds.get(5).getSeatHoldId(),
+                seatHolds.get(0).getSeatHoldId(), 12345), email);
+        Assert.assertEquals(5, reservationIds.size());
+        Assert.assertNotNull(reservationIds.get(0));
+        Assert.assertNull(reservationIds.get(1));
+        Assert.assertNotNull(reservationIds.get(2));
+        Assert.assertEquals(reservationIds.get(0), reservationIds.get(3));
+        Assert.assertNull(reservationIds.get(4));
+        Assert.assertEquals(6, venue1.getReservedSeatCount());
+        Assert.assertEquals(5, venue1.getHeldSeatCount());
+
+        Assert.assertNotNull(service.reserveSeats(seatHolds.get(2).getSeatHoldId(), "abcd@gmail.com"));
+        Assert.assertEquals(11, venue1.getReservedSeatCount());
+    }
+
+
+    @Test
+    public void findAndCancelReservations() throws TicketReservationException {
+        Venue venue1 = new Venue(2, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000);
+        String email1 = "anupam.gupta@gmail.com";
+        String email2 = "abcd@gmail.com";
+
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email1);
+        SeatHold seatHold2 = service.findAndHoldSeats(2, email2);
+        SeatHold seatHold3 = service.findAndHoldSeats(4, email1);
+        String reservationId1 = service.reserveSeats(seatHold1.getSeatHoldId(), email1);
+        String reservationId2 = service.reserveSeats(seatHold2.getSeatHoldId(), email2);
+        String reservationId3 = service.reserveSeats(seatHold3.getSeatHoldId(), email1);
+
+        Assert.assertSame(seatHold2, service.findReservation(reservationId2));
+        Assert.assertNull(service.findReservation("unknown"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(seatHold1, seatHold3)),
+                new HashSet<>(service.findReservations(email1)));
+        Seat seat = seatHold2.getSeatsHold().get(0);
+        Assert.assertSame(seatHold2, service.findReservation(seat.getRow(), seat.getSeatNum()));
+        Assert.assertNull(service.findReservation(5, 0));
+
+        //Only the customer of the reservation can cancel it, and only once
+        Assert.assertNull(service.cancelReservation(reservationId1, email2));
+        Assert.assertSame(seatHold1, service.cancelReservation(reservationId1, email1));
+        Assert.assertNull(service.cancelReservation(reservationId1, email1));
+        Assert.assertNull(service.findReservation(reservationId1));
+        Assert.assertEquals(Collections.singletonList(seatHold3), service.findReservations(email1));
+        seat = seatHold1.getSeatsHold().get(0);
+        Assert.assertNull(service.findReservation(seat.getRow(), seat.getSeatNum()));
+        Assert.assertEquals(6, venue1.getReservedSeatCount());
+        Assert.assertEquals(4, service.numSeatsAvailable());
+
+        //The cancelled seats are the best ones again
+        SeatHold seatHold4 = service.findAndHoldSeats(3, email2);
+        Assert.assertEquals(seatHold1.getSeatsHold(), seatHold4.getSeatsHold());
+
+        service.cancelReservation(reservationId2, email2);
+        service.cancelReservation(reservationId3, email1);
+        Assert.assertTrue(service.findReservations(email1).isEmpty());
+        Assert.assertEquals(3, service.getMetrics().getCancellations());
+        Assert.assertEquals(2, service.getMetrics().getCancelFailures());
+    }
+
+    @Test
+    public void collidingReservationIds() throws TicketReservationException {
+        Venue venue1 = new Venue(2, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000);
+        service.setReservationIdCreator(() -> "SAME-ID");
+        String email = "anupam.gupta@gmail.com";
+
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email);
+        SeatHold seatHold2 = service.findAndHoldSeats(2, email);
+        SeatHold seatHold3 = service.findAndHoldSeats(1, email);
+        Assert.assertEquals("SAME-ID", service.reserveSeats(seatHold1.getSeatHoldId(), email));
+
+        // The reservationId is taken : the reservation is dropped and the other one stays as it was
+        Assert.assertNull(service.reserveSeats(seatHold2.getSeatHoldId(), email));
+        Assert.assertEquals(Arrays.asList((String) null),
+                service.reserveSeatsBatch(Collections.singletonList(seatHold3.getSeatHoldId()), email));
+        Assert.assertSame(seatHold1, service.findReservation("SAME-ID"));
+        Assert.assertEquals(3, venue1.getReservedSeatCount());
+        Assert.assertEquals(0, venue1.getHeldSeatCount());
+        Assert.assertEquals(7, venue1.getOpenSeatCount());
+    }
+
+    @Test
+    public void holdSeatsInSection() throws TicketReservationException {
+        Venue venue1 = new Venue(Arrays.asList(new Section("floor", 1, 10), new Section("112", 4, 5)),
+                ConcurrencyMode.ROW_LOCKS, null);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000);
+        String email = "anupam.gupta@gmail.com";
+
+        SeatHold seatHold1 = service.findAndHoldSeats("112", 4, email);
+        Assert.assertEquals(1, seatHold1.getSeatsHold().get(0).getRow());
+        Assert.assertEquals(16, service.numSeatsAvailable("112"));
+        Assert.assertEquals(10, service.numSeatsAvailable("floor"));
+        Assert.assertEquals(26, service.numSeatsAvailable());
+        Assert.assertEquals(0, service.numSeatsAvailable("unknown"));
+
+        Assert.assertNull(service.findAndHoldSeats("floor", 11, email));
+        Assert.assertNull(service.findAndHoldSeats("unknown", 1, email));
+        Assert.assertNotNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+        Seat seat = seatHold1.getSeatsHold().get(3);
+        Assert.assertSame(seatHold1, service.findReservation(seat.getRow(), seat.getSeatNum()));
+        Assert.assertNull(service.findReservation(0, 10));
+    }
+
+    @Test
+    public void holdsSharingASlot() throws TicketReservationException {
+        Venue venue1 = new Venue(2, 5);
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000);
+        String email = "anupam.gupta@gmail.com";
+
+        //The table of the live holds has 16 slots : the 17th hold goes in the slot of the first one
+        SeatHold seatHold1 = service.findAndHoldSeats(1, email);
+        for (int i = 0; i < 15; i++) {
+            SeatHold seatHold = service.findAndHoldSeats(1, email);
+            service.cancelReservation(service.reserveSeats(seatHold.getSeatHoldId(), email), email);
+        }
+        SeatHold seatHold2 = service.findAndHoldSeats(2, email);
+        Assert.assertEquals(seatHold1.getSeatHoldId() + 16, seatHold2.getSeatHoldId());
+
+        Assert.assertNull(service.reserveSeats(seatHold2.getSeatHoldId() + 16, email));
+        String reservationId = service.reserveSeats(seatHold2.getSeatHoldId(), email);
+        Assert.assertNotNull(reservationId);
+        Assert.assertEquals(reservationId, service.reserveSeats(seatHold2.getSeatHoldId(), email));
+        Assert.assertNotNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+        Assert.assertEquals(3, venue1.getReservedSeatCount());
+    }
+
+    @Test
+    public void customerLimits() throws TicketReservationException {
+        Venue venue1 = new Venue(4, 10);
+        final AtomicLong now = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000, now::get);
+        String email1 = "anupam.gupta@gmail.com";
+        String email2 = "abcd@gmail.com";
+
+        //Holds made before the limits are counted
+        SeatHold seatHold1 = service.findAndHoldSeats(3, email1);
+        service.setCustomerLimits(4, 6);
+
+        //No more than 4 seats held at once, 6 seats in all
+        Assert.assertNull(service.findAndHoldSeats(2, email1));
+        SeatHold seatHold2 = service.findAndHoldSeats(1, email1);
+        Assert.assertNotNull(seatHold2);
+        Assert.assertNotNull(service.findAndHoldSeats(4, email2));
+        Assert.assertNotNull(service.reserveSeats(seatHold1.getSeatHoldId(), email1));
+        Assert.assertNull(service.findAndHoldSeats(3, email1));
+        Assert.assertNotNull(service.findAndHoldSeats(2, email1));
+        Assert.assertNull(service.findAndHoldSeats(1, email1));
+        Assert.assertEquals(30, service.numSeatsAvailable());
+
+        //Expired holds and cancelled reservations give the seats back to the customer
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        service.collectExpiredSeatHolds();
+        Assert.assertNotNull(service.findAndHoldSeats(3, email1));
+        String reservationId = service.findReservations(email1).get(0).getReservationId();
+        Assert.assertNotNull(service.cancelReservation(reservationId, email1));
+        Assert.assertNull(service.findAndHoldSeats(2, email1));
+        Assert.assertNotNull(service.findAndHoldSeats(1, email1));
+
+        //The same email in another case is the same customer
+        Assert.assertNull(service.findAndHoldSeats(1, "Anupam.Gupta@gmail.com"));
+
+        //Batches count against the same limits
+        List<SeatHold> seatHolds = service.findAndHoldSeatsBatch(Arrays.asList(
+                new HoldRequest(4, email2), new HoldRequest(1, email2), new HoldRequest(1, email1)));
+        Assert.assertNotNull(seatHolds.get(0));
+        Assert.assertNull(seatHolds.get(1));
+        Assert.assertNull(seatHolds.get(2));
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void customerLimitsArePositive() throws TicketReservationException {
+        new TicketServiceImpl(new Venue(2, 5)).setCustomerLimits(0, 6);
+    }
+
+    @Test
+    public void metricsCountAndTimeOperations() throws Exception {
+        Venue venue1 = new Venue(2, 5);
+        //Every read of the clock moves it 1 microsecond forward, so every timed call takes 1 microsecond
+        final AtomicLong now = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(venue1, 1000, () -> now.addAndGet(1000));
+        TicketServiceMetrics metrics = service.getMetrics();
+
+        String email = "anupam.gupta@gmail.com";
+        SeatHold seatHold1 = service.findAndHoldSeats(4, email);
+        service.findAndHoldSeats(3, email);
+        Assert.assertNull(service.findAndHoldSeats(8, email));
+        Assert.assertNotNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+        Assert.assertNull(service.reserveSeats(seatHold1.getSeatHoldId(), "abcd@gmail.com"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        Assert.assertEquals(1, service.collectExpiredSeatHolds());
+
+        Assert.assertEquals(2, metrics.getHolds());
+        Assert.assertEquals(1, metrics.getHoldFailures());
+        Assert.assertEquals(1, metrics.getReservations());
+        Assert.assertEquals(1, metrics.getReserveFailures());
+        Assert.assertEquals(0, metrics.getIndeterminateReservations());
+        Assert.assertEquals(1, metrics.getExpiredHolds());
+        Assert.assertEquals(3, metrics.getExpiredSeats());
+        //The failed hold stops before the clock is read to schedule the expiry
+        Assert.assertEquals(3, metrics.getHoldLatency().snapshot().getCount());
+        Assert.assertTrue(metrics.getHoldLatency().snapshot().getValueAtPercentile(30) < 2000);
+        Assert.assertEquals(2000, metrics.getHoldLatencyP99());
+        Assert.assertEquals(6, metrics.getOpenSeats());
+        Assert.assertEquals(4, metrics.getReservedSeats());
+
+        final Map<String, Long> reported = new HashMap<>();
+        metrics.report(new MetricsSink() {
+            public void counter(String name, long value) {
+                reported.put(name, value);
+            }
+
+            public void gauge(String name, long value) {
+                reported.put(name, value);
+            }
+
+            public void histogram(String name, LatencyHistogram.Snapshot snapshot) {
+                reported.put(name, snapshot.getCount());
+            }
+        });
+        Assert.assertEquals(Long.valueOf(2), reported.get("holds"));
+        Assert.assertEquals(Long.valueOf(6), reported.get("seats.open"));
+        Assert.assertEquals(Long.valueOf(3), reported.get("latency.hold"));
+
+        metrics.registerMBean("metricsCountAndTimeOperations");
+        try {
+            ObjectName name = new ObjectName(
+                    "com.walmart.labs.ticketReservation:type=TicketService,name=\"metricsCountAndTimeOperations\"");
+            Assert.assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Holds"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+    }
 }
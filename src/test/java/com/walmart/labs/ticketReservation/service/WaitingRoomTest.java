@@ -0,0 +1,172 @@
+package com.walmart.labs.ticketReservation.service;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class WaitingRoomTest {
+
+    @Test(expected = TicketReservationException.class)
+    public void waitingRoomRateIsPositive() throws TicketReservationException {
+        new WaitingRoom(new TicketServiceImpl(new Venue(5, 5)), 0);
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void waitingRoomNeedsClock() throws TicketReservationException {
+        new WaitingRoom(new TicketServiceImpl(new Venue(5, 5)), 1000, 1, 10, null);
+    }
+
+    @Test
+    public void customersAreAdmittedInOrder() throws Exception {
+        // The clock only moves when the test says so
+        AtomicLong nanos = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), 60000);
+        try (WaitingRoom room = new WaitingRoom(service, 1000, 2, 3, nanos::get)) {
+
+            // The burst lets the first customers in at once, the next ones wait their turn
+            Assert.assertEquals(AdmissionStatus.ADMITTED, room.join().getStatus());
+            Assert.assertEquals(AdmissionStatus.ADMITTED, room.join().getStatus());
+            List<WaitingRoom.Entry> waiting = new ArrayList<>();
+            for (int n = 0; n < 3; n++) {
+                WaitingRoom.Entry entry = room.join();
+                Assert.assertEquals(AdmissionStatus.WAITING, entry.getStatus());
+                Assert.assertEquals(n, entry.getPosition());
+                waiting.add(entry);
+            }
+            Assert.assertEquals(AdmissionStatus.QUEUE_FULL, room.join().getStatus());
+            Assert.assertEquals(3, room.getQueueLength());
+            Assert.assertNull(room.findAndHoldSeats(waiting.get(0), 2, "abcd@gmail.com"));
+
+            // 2 ms at 1000 admissions per second : 2 customers in
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+            room.admit();
+            Assert.assertEquals(AdmissionStatus.ADMITTED, waiting.get(0).await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(AdmissionStatus.ADMITTED, waiting.get(1).getStatus());
+            Assert.assertEquals(AdmissionStatus.WAITING, waiting.get(2).getStatus());
+            Assert.assertEquals(0, waiting.get(2).getPosition());
+            Assert.assertEquals(AdmissionStatus.ABANDONED, waiting.get(2).await(0, TimeUnit.MILLISECONDS));
+
+            // An entry holds seats once
+            SeatHold seatHold = room.findAndHoldSeats(waiting.get(0), 2, "abcd@gmail.com");
+            Assert.assertNotNull(seatHold);
+            Assert.assertNull(room.findAndHoldSeats(waiting.get(0), 2, "abcd@gmail.com"));
+            Assert.assertNotNull(room.reserveSeats(seatHold.getSeatHoldId(), "abcd@gmail.com"));
+            Assert.assertEquals(98, room.numSeatsAvailable());
+        }
+    }
+
+    @Test
+    public void abandonedEntriesAreSkipped() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), 60000);
+        try (WaitingRoom room = new WaitingRoom(service, 1000, 1, 10, nanos::get)) {
+            Assert.assertEquals(AdmissionStatus.ADMITTED, room.join().getStatus());
+            WaitingRoom.Entry gaveUp = room.join();
+            WaitingRoom.Entry next = room.join();
+            Assert.assertEquals(AdmissionStatus.ABANDONED, gaveUp.await(0, TimeUnit.MILLISECONDS));
+
+            // 1 ms at 1000 admissions per second : the one admission goes to the customer still waiting
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            room.admit();
+            Assert.assertEquals(AdmissionStatus.ADMITTED, next.getStatus());
+            Assert.assertEquals(AdmissionStatus.ABANDONED, gaveUp.getStatus());
+            Assert.assertNull(room.findAndHoldSeats(gaveUp, 2, "abcd@gmail.com"));
+            Assert.assertEquals(0, room.getQueueLength());
+        }
+    }
+
+    @Test
+    public void awaitTimesOutOnTheClock() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(10, 10), 60000);
+        try (WaitingRoom room = new WaitingRoom(service, 1, 1, 10, nanos::get)) {
+            Assert.assertEquals(AdmissionStatus.ADMITTED, room.join().getStatus());
+            WaitingRoom.Entry entry = room.join();
+            AtomicReference<AdmissionStatus> awaited = new AtomicReference<>();
+            Thread customer = new Thread(() -> {
+                try {
+                    awaited.set(entry.await(100, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            customer.start();
+
+            // Real time does not time the wait out, the clock does
+            customer.join(200);
+            Assert.assertTrue(customer.isAlive());
+            Assert.assertEquals(AdmissionStatus.WAITING, entry.getStatus());
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            customer.join(5000);
+            Assert.assertEquals(AdmissionStatus.ABANDONED, awaited.get());
+        }
+    }
+
+    @Test
+    public void soldOutFailsFast() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        TicketServiceImpl service = new TicketServiceImpl(new Venue(2, 5), 60000);
+        try (WaitingRoom room = new WaitingRoom(service, 1000, 1, 10, nanos::get)) {
+            Assert.assertNotNull(room.findAndHoldSeats(5, "abcd@gmail.com"));
+            WaitingRoom.Entry entry = room.join();
+            Assert.assertEquals(AdmissionStatus.WAITING, entry.getStatus());
+
+            // The waiting customers are told once the last seats are gone
+            Assert.assertNotNull(service.findAndHoldSeats(5, "efgh@gmail.com"));
+            Assert.assertEquals(AdmissionStatus.SOLD_OUT, entry.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(AdmissionStatus.SOLD_OUT, room.join().getStatus());
+            Assert.assertNull(room.findAndHoldSeats(1, "abcd@gmail.com"));
+            Assert.assertEquals(0, room.getQueueLength());
+        }
+    }
+
+    @Test
+    public void closedWaitingRoom() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        WaitingRoom room = new WaitingRoom(new TicketServiceImpl(new Venue(2, 5)), 1000, 1, 10, nanos::get);
+        Assert.assertEquals(AdmissionStatus.ADMITTED, room.join().getStatus());
+        WaitingRoom.Entry entry = room.join();
+        room.close();
+        Assert.assertEquals(AdmissionStatus.CLOSED, entry.getStatus());
+        Assert.assertEquals(AdmissionStatus.CLOSED, room.join().getStatus());
+    }
+
+    @Test
+    public void concurrentCustomers() throws Exception {
+        Venue venue = new Venue(10, 20);
+        try (WaitingRoom room = new WaitingRoom(new TicketServiceImpl(venue, 60000), 20000)) {
+            AtomicInteger seatsHeld = new AtomicInteger();
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                String email = "customer" + t + "@gmail.com";
+                threads[t] = new Thread(() -> {
+                    for (int n = 0; n < 20; n++) {
+                        SeatHold seatHold = room.findAndHoldSeats(2, email);
+                        if (seatHold != null) {
+                            seatsHeld.addAndGet(seatHold.getSeatsHold().size());
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join(30000);
+            }
+
+            // 320 seats asked for 200 : the venue is sold out, without overselling it
+            Assert.assertEquals(200, seatsHeld.get());
+            Assert.assertEquals(0, room.numSeatsAvailable());
+            Assert.assertEquals(200, venue.getHeldSeatCount());
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.walmart.labs.ticketReservation.shard;
+
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
+import com.walmart.labs.ticketReservation.model.seat.SeatHold;
+import com.walmart.labs.ticketReservation.model.venue.Venue;
+import com.walmart.labs.ticketReservation.service.TicketServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShardedTicketServiceTest {
+
+    @Test
+    public void holdsGoToTheShardWithMostSeats() throws TicketReservationException {
+        LocalShardTransport transport = new LocalShardTransport();
+        TicketServiceImpl floor = new TicketServiceImpl(new Venue(2, 5), 1000);
+        TicketServiceImpl balcony = new TicketServiceImpl(new Venue(3, 10), 1000);
+        floor.setSeatHoldIdClass(0, 2);
+        balcony.setSeatHoldIdClass(1, 2);
+        transport.connect("floor", floor);
+        transport.connect("balcony", balcony);
+        ShardedTicketService service = new ShardedTicketService(transport, Arrays.asList("floor", "balcony"));
+        String email = "anupam.gupta@gmail.com";
+
+        Assert.assertEquals(40, service.numSeatsAvailable());
+        SeatHold seatHold1 = service.findAndHoldSeats(10, email);
+        Assert.assertEquals("balcony", service.getShardId(seatHold1.getSeatHoldId()));
+        Assert.assertEquals(20, balcony.numSeatsAvailable());
+        //The seats of the shards are told apart by their shard
+        ShardSeat seat = (ShardSeat) seatHold1.getSeatsHold().get(0);
+        Assert.assertEquals("balcony", seat.getShardId());
+        Assert.assertEquals("balcony-" + seat.getRow() + "-" + seat.getSeatNum(), seat.getId());
+        SeatHold seatHold2 = service.findAndHoldSeats(10, email);
+        SeatHold seatHold3 = service.findAndHoldSeats(4, email);
+        Assert.assertEquals("balcony", service.getShardId(seatHold2.getSeatHoldId()));
+        //The floor has the most seats left now
+        Assert.assertEquals("floor", service.getShardId(seatHold3.getSeatHoldId()));
+        Assert.assertNotEquals(seatHold3.getSeatsHold().get(0),
+                new ShardSeat("balcony", seatHold3.getSeatsHold().get(0)));
+
+        //Too many for the shard with the most seats : the next shard which fits
+        SeatHold seatHold4 = service.findAndHoldSeats(8, email);
+        Assert.assertEquals("balcony", service.getShardId(seatHold4.getSeatHoldId()));
+        Assert.assertNull(service.findAndHoldSeats(7, email));
+        Assert.assertEquals(8, service.numSeatsAvailable());
+
+        //Reservations are routed to the shard of the hold
+        String reservationId = service.reserveSeats(seatHold3.getSeatHoldId(), email);
+        Assert.assertTrue(reservationId.startsWith("floor-"));
+        Assert.assertEquals(4, floor.getMetrics().getReservedSeats());
+        Assert.assertEquals(reservationId, service.reserveSeats(seatHold3.getSeatHoldId(), email));
+        Assert.assertNotNull(service.reserveSeats(seatHold1.getSeatHoldId(), email));
+        Assert.assertNull(service.findAndHoldSeats(1, "not an email"));
+    }
+
+    @Test
+    public void shardsComeBackAfterExpiryAndOutage() throws TicketReservationException {
+        final AtomicLong now = new AtomicLong();
+        LocalShardTransport transport = new LocalShardTransport();
+        TicketServiceImpl shard1 = new TicketServiceImpl(new Venue(1, 6), 1000, now::get);
+        TicketServiceImpl shard2 = new TicketServiceImpl(new Venue(1, 4), 1000, now::get);
+        shard1.setSeatHoldIdClass(0, 2);
+        shard2.setSeatHoldIdClass(1, 2);
+        transport.connect("shard1", shard1);
+        transport.connect("shard2", shard2);
+        ShardedTicketService service = new ShardedTicketService(transport, Arrays.asList("shard1", "shard2"));
+        String email = "anupam.gupta@gmail.com";
+
+        Assert.assertNotNull(service.findAndHoldSeats(6, email));
+        Assert.assertNotNull(service.findAndHoldSeats(4, email));
+        Assert.assertNull(service.findAndHoldSeats(1, email));
+
+        //The expired seats are seen again by the next hold
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        shard1.collectExpiredSeatHolds();
+        shard2.collectExpiredSeatHolds();
+        Assert.assertEquals("shard1", service.getShardId(service.findAndHoldSeats(5, email).getSeatHoldId()));
+
+        //A shard which can't be reached is skipped
+        transport.disconnect("shard2");
+        Assert.assertEquals(1, service.numSeatsAvailable());
+        Assert.assertNull(service.findAndHoldSeats(2, email));
+        transport.connect("shard2", shard2);
+        Assert.assertEquals("shard2", service.getShardId(service.findAndHoldSeats(2, email).getSeatHoldId()));
+    }
+
+    @Test
+    public void partiesAreSeatedInOneShard() throws TicketReservationException {
+        LocalShardTransport transport = new LocalShardTransport();
+        TicketServiceImpl shard1 = new TicketServiceImpl(new Venue(1, 6), 1000);
+        TicketServiceImpl shard2 = new TicketServiceImpl(new Venue(1, 6), 1000);
+        shard1.setSeatHoldIdClass(0, 2);
+        shard2.setSeatHoldIdClass(1, 2);
+        transport.connect("shard1", shard1);
+        transport.connect("shard2", shard2);
+        ShardedTicketService service = new ShardedTicketService(transport, Arrays.asList("shard1", "shard2"));
+
+        //12 seats in all, but no shard can seat 7
+        Assert.assertNull(service.findAndHoldSeats(7, "anupam.gupta@gmail.com"));
+        Assert.assertEquals(12, service.numSeatsAvailable());
+        Assert.assertNotNull(service.findAndHoldSeats(6, "anupam.gupta@gmail.com"));
+    }
+
+    @Test
+    public void holdOutsideTheSeatHoldIdClassIsReleased() throws TicketReservationException {
+        LocalShardTransport transport = new LocalShardTransport();
+        TicketServiceImpl shard1 = new TicketServiceImpl(new Venue(1, 6), 1000);
+        TicketServiceImpl shard2 = new TicketServiceImpl(new Venue(1, 10), 1000);
+        shard1.setSeatHoldIdClass(0, 2);
+        transport.connect("shard1", shard1);
+        transport.connect("shard2", shard2);
+        ShardedTicketService service = new ShardedTicketService(transport, Arrays.asList("shard1", "shard2"));
+        String email = "anupam.gupta@gmail.com";
+
+        //shard2 hands out 0, which would be routed to shard1 : its seats are given back and shard1 holds them
+        SeatHold seatHold1 = service.findAndHoldSeats(4, email);
+        Assert.assertEquals("shard1", service.getShardId(seatHold1.getSeatHoldId()));
+        Assert.assertEquals(10, shard2.numSeatsAvailable());
+
+        shard2.setSeatHoldIdClass(1, 2);
+        SeatHold seatHold2 = service.findAndHoldSeats(4, email);
+        Assert.assertEquals("shard2", service.getShardId(seatHold2.getSeatHoldId()));
+        Assert.assertTrue(service.reserveSeats(seatHold2.getSeatHoldId(), email).startsWith("shard2-"));
+        Assert.assertTrue(service.reserveSeats(seatHold1.getSeatHoldId(), email).startsWith("shard1-"));
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void shardsNeedDistinctIds() throws TicketReservationException {
+        new ShardedTicketService(new LocalShardTransport(), Arrays.asList("shard1", "shard1"));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.walmart.labs.ticketReservation.utils;
 
+import com.walmart.labs.ticketReservation.exception.TicketReservationException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -49,4 +50,92 @@ public class IdCreatorTest {
         Assert.assertFalse(duplicate);
     }
 
+    @Test
+    public void snowflakeIdsIncreaseAcrossThreads() throws Exception {
+        final SnowflakeIdCreator idCreator = new SnowflakeIdCreator(5, 42L);
+        final long[][] ids = new long[4][20000];
+        Thread[] threads = new Thread[ids.length];
+        for (int t = 0; t < threads.length; t++) {
+            final long[] threadIds = ids[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < threadIds.length; i++) {
+                    threadIds[i] = idCreator.nextId();
+                }
+            });
+            threads[t].start();
+        }
+        Set<Long> idSet = new HashSet<>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            for (int i = 0; i < ids[t].length; i++) {
+                Assert.assertTrue(idSet.add(ids[t][i]));
+                Assert.assertEquals(5, SnowflakeIdCreator.getNodeId(ids[t][i]));
+                if (i > 0) {
+                    Assert.assertTrue(ids[t][i] > ids[t][i - 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void snowflakeIdsOfAClockGoingBack() throws Exception {
+        final long[] now = {1600000000000L};
+        SnowflakeIdCreator idCreator = new SnowflakeIdCreator(1, 42L, () -> now[0]);
+        long id1 = idCreator.nextId();
+        Assert.assertEquals(now[0], SnowflakeIdCreator.getTimeMillis(id1));
+        now[0] -= 1000;
+        long id2 = idCreator.nextId();
+        Assert.assertTrue(id2 > id1);
+        now[0] += 2000;
+        Assert.assertEquals(now[0], SnowflakeIdCreator.getTimeMillis(idCreator.nextId()));
+    }
+
+    @Test
+    public void confirmationCodes() throws Exception {
+        SnowflakeIdCreator idCreator = new SnowflakeIdCreator(3, 42L);
+        long id = idCreator.nextId();
+        String code1 = idCreator.encode(id);
+        String code2 = idCreator.createId();
+        Assert.assertEquals(13, code1.length());
+        Assert.assertNotEquals(code1.substring(0, 8), code2.substring(0, 8));
+        Assert.assertEquals(id, idCreator.decode(code1));
+        Assert.assertEquals(id, idCreator.decode(code1.toLowerCase()));
+        Assert.assertEquals(id, new SnowflakeIdCreator(9, 42L).decode(code1));
+        Assert.assertNotEquals(id, new SnowflakeIdCreator(3, 43L).decode(code1));
+        Assert.assertEquals(-1, idCreator.decode("ZZZZZZZZZZZZZ"));
+        Assert.assertEquals(-1, idCreator.decode("0000000000OOO"));
+        Assert.assertEquals(-1, idCreator.decode(null));
+    }
+
+    @Test
+    public void seatHoldIdsWrapAtMaxValue() {
+        SeatHoldIdCreator idCreator = new SeatHoldIdCreator(Integer.MAX_VALUE);
+        Assert.assertEquals(Integer.MAX_VALUE, idCreator.nextId());
+        Assert.assertEquals(0, idCreator.nextId());
+    }
+
+    @Test
+    public void seatHoldIdsOfAResidueClass() throws TicketReservationException {
+        //Every id leaves 1 divided by 3, up to the last one below Integer.MAX_VALUE, then back to the first
+        SeatHoldIdCreator idCreator = new SeatHoldIdCreator(Integer.MAX_VALUE - 5, 1, 3);
+        Assert.assertEquals(Integer.MAX_VALUE - 3, idCreator.nextId());
+        Assert.assertEquals(Integer.MAX_VALUE, idCreator.nextId());
+        Assert.assertEquals(1, idCreator.nextId());
+        Assert.assertEquals(4, idCreator.nextId());
+
+        Assert.assertEquals(2, new SeatHoldIdCreator(0, 2, 3).nextId());
+        Assert.assertEquals(5, new SeatHoldIdCreator(3, 2, 3).nextId());
+        Assert.assertEquals(Integer.MAX_VALUE - 1, new SeatHoldIdCreator(Integer.MAX_VALUE - 2, 0, 3).nextId());
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void seatHoldIdResidueOutOfRange() throws TicketReservationException {
+        new SeatHoldIdCreator(0, 3, 3);
+    }
+
+    @Test(expected = TicketReservationException.class)
+    public void snowflakeNodeIdOutOfRange() throws TicketReservationException {
+        new SnowflakeIdCreator(SnowflakeIdCreator.MAX_NODE_ID + 1);
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.walmart.labs.ticketReservation.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UtilsTest {
+
+    @Test
+    public void validateAcceptsTheAddressesOfTheRegex() {
+        String[] emails = {
+                "anupam.gupta@gmail.com", "A.B-C_D%E+F@sub.example-1.MUSEUM", "a@b.co", "a@b.c", "a@b.abcdefg",
+                "a@.co", "a@b..co", "@b.co", "a@@b.co", "a@b@c.co", "a b@c.co", "a@b.c0m", "a@bco", "a@b.co.",
+                "a@b.co\n", "a@b.co\r\n", "a@b.co\r", "a@b.co\u2028", "a@b.co\n\n", "a@b.co\n\r", "a@b.co\u2029",
+                "a@b.co\u0085", "a@b.co ", "a@b-.co", "a..b@c.co", "\u00e9@b.co", "a@b.\u212aO", "", "a", "a@", "@"
+        };
+        for (String email : emails) {
+            Assert.assertEquals(email, Utils.VALID_EMAIL_ADDRESS_REGEX.matcher(email).find(), Utils.validate(email));
+        }
+        Assert.assertFalse(Utils.validate(null));
+    }
+
+}